@@ -59,7 +59,8 @@ public class BuildTest {
     public static Collection<Object[]> data() {
         return asList(new Object[][]{
                 {"jumi-actors",
-                        asList(Opcodes.V1_6),
+                        // the shaded ASM library is compiled for Java 5
+                        asList(Opcodes.V1_5, Opcodes.V1_6),
                         asList(),
                         asList(
                                 MANIFEST,
@@ -78,6 +79,16 @@ public class BuildTest {
                                 ANNOTATION_PROCESSOR),
                         new Deprecations()
                 },
+                {"jumi-actors-jfr",
+                        asList(Opcodes.V1_8),
+                        asList(
+                                "fi.jumi.actors:jumi-actors"),
+                        asList(
+                                MANIFEST,
+                                POM_FILES,
+                                BASE_PACKAGE + "actors/jfr/"),
+                        new Deprecations()
+                },
                 {"thread-safety-agent",
                         asList(Opcodes.V1_5, Opcodes.V1_6),
                         asList(),
@@ -0,0 +1,21 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.generator.GenerateEventizer;
+
+@GenerateEventizer
+public interface ArgumentsListener {
+
+    void zeroArgs();
+
+    void oneArg(int a);
+
+    void twoArgs(int a, String b);
+
+    void fourArgs(int a, long b, double c, String d);
+
+    void eightArgs(int a, long b, double c, boolean d, String e, Object f, byte g, char h);
+}
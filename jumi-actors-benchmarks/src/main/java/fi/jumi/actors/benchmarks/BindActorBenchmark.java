@@ -0,0 +1,40 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of creating a short-lived actor, for example one which is used as a callback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class BindActorBenchmark {
+
+    private final Runnable rawActor = () -> {
+    };
+    private ActorThread actorThread;
+
+    @Setup
+    public void setUp() {
+        SingleThreadedActors actors = new SingleThreadedActors(
+                new DynamicEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        actorThread = actors.startActorThread();
+    }
+
+    @Benchmark
+    public ActorRef<Runnable> bindActor() {
+        return actorThread.bindActor(Runnable.class, rawActor);
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.eventizers.EventToString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of formatting a message, which happens for every message when the messages are logged.
+ * Run with {@code -prof gc} to see how much garbage is created.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EventToStringBenchmark {
+
+    private final Object[] args = {"some text argument", 42, 123456789L, true};
+    private final StringBuilder out = new StringBuilder();
+
+    @Benchmark
+    public String format() {
+        return EventToString.format("ArgumentsListener", "fourArgs", args);
+    }
+
+    @Benchmark
+    public StringBuilder formatTo() throws IOException {
+        out.setLength(0);
+        EventToString.formatTo(out, "ArgumentsListener", "fourArgs", args);
+        return out;
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.eventizers.Eventizer;
+import fi.jumi.actors.eventizers.bytecode.BytecodeEventizer;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizer;
+import fi.jumi.actors.queue.MessageSender;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflection based {@link DynamicEventizer} against the eventizers generated with
+ * {@link fi.jumi.actors.generator.GenerateEventizer} at compile time and by {@link BytecodeEventizer} at runtime, for
+ * methods with different numbers of arguments. The frontend is connected directly to the backend, so that only the
+ * cost of creating and firing the events is measured. The events are published to a field on the way, the same way as
+ * a mailbox would, so that escape analysis cannot remove their allocation.
+ * <p>
+ * Run with {@code -prof gc} to also see the allocation rate per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EventizerBenchmark {
+
+    @Param({"dynamic", "generated", "bytecode"})
+    public String eventizer;
+
+    private final Object object = new Object();
+    private ArgumentsSink target;
+    private ArgumentsListener frontend;
+
+    @Setup
+    public void setUp() {
+        Eventizer<ArgumentsListener> eventizer = newEventizer(this.eventizer);
+        target = new ArgumentsSink();
+        frontend = eventizer.newFrontend(new PublishingSender<>(eventizer.newBackend(target)));
+    }
+
+    static Eventizer<ArgumentsListener> newEventizer(String name) {
+        switch (name) {
+            case "dynamic":
+                return new DynamicEventizer<>(ArgumentsListener.class);
+            case "generated":
+                return new ArgumentsListenerEventizer();
+            case "bytecode":
+                return new BytecodeEventizer<>(ArgumentsListener.class);
+            default:
+                throw new IllegalArgumentException("unknown eventizer: " + name);
+        }
+    }
+
+    @Benchmark
+    public long zeroArgs() {
+        frontend.zeroArgs();
+        return target.sink;
+    }
+
+    @Benchmark
+    public long oneArg() {
+        frontend.oneArg(1);
+        return target.sink;
+    }
+
+    @Benchmark
+    public long twoArgs() {
+        frontend.twoArgs(1, "b");
+        return target.sink;
+    }
+
+    @Benchmark
+    public long fourArgs() {
+        frontend.fourArgs(1, 2L, 3.0, "d");
+        return target.sink;
+    }
+
+    @Benchmark
+    public long eightArgs() {
+        frontend.eightArgs(1, 2L, 3.0, true, "e", object, (byte) 7, 'h');
+        return target.sink;
+    }
+
+    /**
+     * Time to the first message when the eventizer is used for the first time in a fresh JVM, which includes class
+     * loading and generating the proxy or bytecode classes.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public long firstMessage() {
+        Eventizer<ArgumentsListener> eventizer = newEventizer(this.eventizer);
+        ArgumentsSink target = new ArgumentsSink();
+        eventizer.newFrontend(eventizer.newBackend(target)).fourArgs(1, 2L, 3.0, "d");
+        return target.sink;
+    }
+
+
+    private static class PublishingSender<T> implements MessageSender<T> {
+        private final MessageSender<T> target;
+        private Object published;
+
+        public PublishingSender(MessageSender<T> target) {
+            this.target = target;
+        }
+
+        @Override
+        public void send(T message) {
+            published = message;
+            target.send(message);
+        }
+    }
+
+    private static class ArgumentsSink implements ArgumentsListener {
+        long sink;
+
+        @Override
+        public void zeroArgs() {
+            sink++;
+        }
+
+        @Override
+        public void oneArg(int a) {
+            sink += a;
+        }
+
+        @Override
+        public void twoArgs(int a, String b) {
+            sink += a + b.length();
+        }
+
+        @Override
+        public void fourArgs(int a, long b, double c, String d) {
+            sink += a + b + (long) c + d.length();
+        }
+
+        @Override
+        public void eightArgs(int a, long b, double c, boolean d, String e, Object f, byte g, char h) {
+            sink += a + b + (long) c + (d ? 1 : 0) + e.length() + f.hashCode() + g + h;
+        }
+    }
+}
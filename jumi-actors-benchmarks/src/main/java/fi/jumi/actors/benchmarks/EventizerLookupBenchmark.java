@@ -1,32 +1,32 @@
-// Copyright © 2011-2012, Esko Luontola <www.orfjackal.net>
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
 // This software is released under the Apache License 2.0.
 // The license text is at http://www.apache.org/licenses/LICENSE-2.0
 
-package fi.jumi.actors.eventizers.dynamic;
+package fi.jumi.actors.benchmarks;
 
-import com.google.caliper.*;
 import fi.jumi.actors.eventizers.Eventizer;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import org.openjdk.jmh.annotations.*;
 
-@SuppressWarnings("UnusedDeclaration")
-public class DynamicEventizerBenchmark extends SimpleBenchmark {
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of looking up an already created eventizer, which happens every time that an actor is bound.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EventizerLookupBenchmark {
 
     private final DynamicEventizerProvider provider = new DynamicEventizerProvider();
 
-    public int timeEventizerLookup(int reps) {
-        int junk = 0;
-        for (int i = 0; i < reps; i++) {
-            Eventizer<?> eventizer = provider.getEventizerForType(ListenerWithLotsOfMethods.class);
-            junk += eventizer.hashCode();
-        }
-        return junk;
+    @Benchmark
+    public Eventizer<?> dynamicEventizerLookup() {
+        return provider.getEventizerForType(ListenerWithLotsOfMethods.class);
     }
 
 
-    public static void main(String[] args) {
-        Runner.main(DynamicEventizerBenchmark.class, new String[0]);
-    }
-
-    private interface ListenerWithLotsOfMethods {
+    public interface ListenerWithLotsOfMethods {
 
         void event1();
 
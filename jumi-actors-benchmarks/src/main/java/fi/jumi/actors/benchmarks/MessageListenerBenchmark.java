@@ -0,0 +1,89 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.bytecode.BytecodeEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of tracing messages with a {@link MessageListener}, i.e. how much slower sending and processing messages
+ * becomes when tracing is enabled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MessageListenerBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"null", "printStream", "asyncPrintStream", "mappedTrace", "sampling"})
+    public String listener;
+
+    private File traceFile;
+    private MessageListener messageListener;
+    private SingleThreadedActors actors;
+    private ActorRef<Runnable> target;
+
+    @Setup
+    public void setUp() throws IOException {
+        traceFile = File.createTempFile("trace", ".bin");
+        messageListener = newMessageListener(listener, traceFile);
+        actors = new SingleThreadedActors(
+                new BytecodeEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                messageListener
+        );
+        target = actors.startActorThread().bindActor(Runnable.class, () -> {
+        });
+    }
+
+    private static MessageListener newMessageListener(String name, File traceFile) throws IOException {
+        switch (name) {
+            case "null":
+                return new NullMessageListener();
+            case "printStream":
+                return new PrintStreamMessageLogger(new PrintStream(new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+                }));
+            case "asyncPrintStream":
+                return new AsyncPrintStreamMessageLogger(new PrintStream(new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+                }));
+            case "mappedTrace":
+                return new MappedTraceMessageListener(traceFile, 1024 * 1024);
+            case "sampling":
+                return new SamplingMessageListener(1000);
+            default:
+                throw new IllegalArgumentException("unknown listener: " + name);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (messageListener instanceof Closeable) {
+            ((Closeable) messageListener).close();
+        }
+        traceFile.delete();
+        new File(traceFile.getPath() + ".strings").delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void sendAndProcess() {
+        for (int i = 0; i < BATCH; i++) {
+            target.tell().run();
+        }
+        actors.processEventsUntilIdle();
+    }
+}
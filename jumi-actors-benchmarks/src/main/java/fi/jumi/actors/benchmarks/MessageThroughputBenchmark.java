@@ -0,0 +1,118 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Send messages to one actor from one or many producer threads. Each producer sends a batch of messages and then
+ * waits until the actor has processed them, so that the mailbox cannot grow without bounds.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MessageThroughputBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"MessageQueue", "UnboundedManyToOneMessageQueue", "BoundedBatchingManyToOneMessageQueue", "RingBufferMessageQueue", "OneToOneMessageQueue"})
+    public String mailbox;
+
+    private ExecutorService executor;
+    private ActorThread actorThread;
+    private ActorRef<Consumer> consumer;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        MultiThreadedActors actors = new MultiThreadedActors(
+                executor,
+                new DynamicEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        actorThread = actors.startActorThread(mailboxFactory(mailbox));
+        consumer = actorThread.bindActor(Consumer.class, new CountingConsumer());
+    }
+
+    private static MailboxFactory mailboxFactory(String name) {
+        switch (name) {
+            case "MessageQueue":
+                return MessageQueue::new;
+            case "UnboundedManyToOneMessageQueue":
+                return UnboundedManyToOneMessageQueue::new;
+            case "BoundedBatchingManyToOneMessageQueue":
+                return () -> new BoundedBatchingManyToOneMessageQueue<>(BATCH);
+            case "RingBufferMessageQueue":
+                return () -> new RingBufferMessageQueue<>(1024);
+            case "OneToOneMessageQueue":
+                return OneToOneMessageQueue::new;
+            default:
+                throw new IllegalArgumentException("unknown mailbox: " + name);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        actorThread.stop();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH)
+    public void singleProducer(Producer producer) {
+        sendBatch(producer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public void multipleProducers(Producer producer) {
+        sendBatch(producer);
+    }
+
+    private void sendBatch(Producer producer) {
+        Consumer consumer = this.consumer.tell();
+        for (int i = 0; i < BATCH; i++) {
+            consumer.onMessage(i);
+        }
+        consumer.onBatchEnd(producer.barrier);
+        producer.barrier.await();
+    }
+
+
+    @State(Scope.Thread)
+    public static class Producer {
+        final BusyWaitBarrier barrier = new BusyWaitBarrier();
+    }
+
+    public interface Consumer {
+
+        void onMessage(int value);
+
+        void onBatchEnd(BusyWaitBarrier barrier);
+    }
+
+    private static class CountingConsumer implements Consumer {
+        private long sum = 0;
+
+        @Override
+        public void onMessage(int value) {
+            sum += value;
+        }
+
+        @Override
+        public void onBatchEnd(BusyWaitBarrier barrier) {
+            barrier.trigger();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Send a message to an actor on another thread and wait for it to reply. Sample mode reports the latency
+ * percentiles, which depend mostly on how the actor thread waits for messages.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PingPongLatencyBenchmark {
+
+    @Param({"Blocking", "SpinThenPark", "Yielding", "BusySpin"})
+    public String waitStrategy;
+
+    private final BusyWaitBarrier barrier = new BusyWaitBarrier();
+    private ExecutorService executor;
+    private ActorThread actorThread;
+    private ActorRef<Runnable> ponger;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        MultiThreadedActors actors = new MultiThreadedActors(
+                executor,
+                waitStrategy(waitStrategy),
+                new DynamicEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        actorThread = actors.startActorThread();
+        ponger = actorThread.bindActor(Runnable.class, barrier::trigger);
+    }
+
+    private static WaitStrategy waitStrategy(String name) {
+        switch (name) {
+            case "Blocking":
+                return new BlockingWaitStrategy();
+            case "SpinThenPark":
+                return new SpinThenParkWaitStrategy();
+            case "Yielding":
+                return new YieldingWaitStrategy();
+            case "BusySpin":
+                return new BusySpinWaitStrategy();
+            default:
+                throw new IllegalArgumentException("unknown wait strategy: " + name);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        actorThread.stop();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void pingPong() {
+        ponger.tell().run();
+        barrier.await();
+    }
+}
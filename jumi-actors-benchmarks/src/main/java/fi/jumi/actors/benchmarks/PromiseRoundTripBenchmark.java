@@ -0,0 +1,57 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Call an actor method which returns a {@link Promise} and wait for the callback.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PromiseRoundTripBenchmark {
+
+    private final BusyWaitBarrier barrier = new BusyWaitBarrier();
+    private final Callback<String> callback = result -> barrier.trigger();
+    private ExecutorService executor;
+    private ActorThread actorThread;
+    private ActorRef<Service> service;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        MultiThreadedActors actors = new MultiThreadedActors(
+                executor,
+                new DynamicEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        actorThread = actors.startActorThread();
+        service = actorThread.bindActor(Service.class, () -> Promise.of("result"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        actorThread.stop();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void promiseRoundTrip() {
+        service.tell().query().then(callback);
+        barrier.await();
+    }
+
+
+    public interface Service {
+        Promise<String> query();
+    }
+}
@@ -1,13 +1,13 @@
-// Copyright © 2011-2012, Esko Luontola <www.orfjackal.net>
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
 // This software is released under the Apache License 2.0.
 // The license text is at http://www.apache.org/licenses/LICENSE-2.0
 
 package fi.jumi.actors.benchmarks;
 
-import com.google.caliper.*;
 import fi.jumi.actors.*;
 import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
 import fi.jumi.actors.listeners.*;
+import org.openjdk.jmh.annotations.*;
 
 import java.util.concurrent.*;
 
@@ -16,18 +16,24 @@ import java.util.concurrent.*;
  * <p>
  * Based on http://blog.grayproductions.net/articles/erlang_message_passing/
  */
-public class RingBenchmark extends SimpleBenchmark {
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RingBenchmark {
 
-    @Param int ringSize;
-    @Param int roundTrips;
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int ringSize;
 
-    private final CyclicBarrier barrier = new CyclicBarrier(2);
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    @Param({"1000"})
+    public int roundTrips;
 
+    private final CyclicBarrier barrier = new CyclicBarrier(2);
+    private ExecutorService executor;
     private ActorRef<Ring> ring;
 
-    @Override
-    protected void setUp() throws Exception {
+    @Setup
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
         MultiThreadedActors actors = new MultiThreadedActors(
                 executor,
                 new DynamicEventizerProvider(),
@@ -48,16 +54,15 @@ public class RingBenchmark extends SimpleBenchmark {
         ring.tell().build(ringSize, ring);
     }
 
-    @Override
-    protected void tearDown() throws Exception {
+    @TearDown
+    public void tearDown() {
         executor.shutdownNow();
     }
 
-    public void timeRingRoundTrips(int reps) {
-        for (int i = 0; i < reps; i++) {
-            ring.tell().forward(roundTrips);
-            sync(barrier);
-        }
+    @Benchmark
+    public void ringRoundTrips() {
+        ring.tell().forward(roundTrips);
+        sync(barrier);
     }
 
     public static void sync(CyclicBarrier barrier) {
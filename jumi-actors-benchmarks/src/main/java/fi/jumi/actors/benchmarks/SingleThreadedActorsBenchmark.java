@@ -0,0 +1,75 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.EventizerProvider;
+import fi.jumi.actors.eventizers.bytecode.BytecodeEventizerProvider;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message processing throughput of {@link SingleThreadedActors#processEventsUntilIdle()}, i.e. the overhead which
+ * actors add to tests that use them.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation per message. With {@code eventizer=recycling} the events and their
+ * envelopes are reused, so what remains is allocated by the mailbox.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SingleThreadedActorsBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"1", "10"})
+    public int actorThreads;
+
+    @Param({"dynamic", "bytecode", "recycling"})
+    public String eventizer;
+
+    private SingleThreadedActors actors;
+    private ActorRef<Runnable>[] targets;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        actors = new SingleThreadedActors(
+                newEventizerProvider(eventizer),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        targets = new ActorRef[actorThreads];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = actors.startActorThread().bindActor(Runnable.class, () -> {
+            });
+        }
+    }
+
+    private static EventizerProvider newEventizerProvider(String name) {
+        switch (name) {
+            case "dynamic":
+                return new DynamicEventizerProvider();
+            case "bytecode":
+                return new BytecodeEventizerProvider();
+            case "recycling":
+                return new BytecodeEventizerProvider(true);
+            default:
+                throw new IllegalArgumentException("unknown eventizer: " + name);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void processEventsUntilIdle() {
+        for (int i = 0; i < BATCH; i++) {
+            targets[i % targets.length].tell().run();
+        }
+        actors.processEventsUntilIdle();
+    }
+}
@@ -0,0 +1,67 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.benchmarks;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Create the actors container, send and receive one message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WarmStartupBenchmark {
+
+    private final BusyWaitBarrier barrier = new BusyWaitBarrier();
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void multiThreadedActors() {
+        MultiThreadedActors actors = new MultiThreadedActors(
+                executor,
+                new DynamicEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        ActorThread actorThread = actors.startActorThread();
+
+        ActorRef<Runnable> runnable = actorThread.bindActor(Runnable.class, barrier::trigger);
+        runnable.tell().run();
+        barrier.await();
+
+        actorThread.stop();
+    }
+
+    @Benchmark
+    public void singleThreadedActors() {
+        SingleThreadedActors actors = new SingleThreadedActors(
+                new DynamicEventizerProvider(),
+                new CrashEarlyFailureHandler(),
+                new NullMessageListener()
+        );
+        ActorThread actorThread = actors.startActorThread();
+
+        ActorRef<Runnable> runnable = actorThread.bindActor(Runnable.class, () -> {
+        });
+        runnable.tell().run();
+
+        actors.processEventsUntilIdle();
+    }
+}
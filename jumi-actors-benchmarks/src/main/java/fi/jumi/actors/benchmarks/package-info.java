@@ -0,0 +1,8 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+@ParametersAreNonnullByDefault
+package fi.jumi.actors.benchmarks;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -25,9 +25,35 @@ public abstract class JavaType {
             TypeElement element = (TypeElement) dt.asElement(); // XXX: strips away generics
             return JavaType.of(element, type, null);
         }
+        if (kind.isPrimitive()) {
+            return JavaType.of(primitiveClassOf(kind));
+        }
         throw new IllegalArgumentException("unsupported kind " + kind);
     }
 
+    private static Class<?> primitiveClassOf(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return boolean.class;
+            case BYTE:
+                return byte.class;
+            case SHORT:
+                return short.class;
+            case INT:
+                return int.class;
+            case LONG:
+                return long.class;
+            case CHAR:
+                return char.class;
+            case FLOAT:
+                return float.class;
+            case DOUBLE:
+                return double.class;
+            default:
+                throw new IllegalArgumentException("not a primitive type: " + kind);
+        }
+    }
+
     public static JavaType of(Type type) {
         return of(null, null, type, typeArgumentsOf(type));
     }
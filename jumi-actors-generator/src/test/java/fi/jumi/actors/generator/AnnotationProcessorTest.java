@@ -41,6 +41,20 @@ public class AnnotationProcessorTest {
         assertThat(new File(outputDir, "com/example/DummyInterfaceEventizer.class"), exists());
     }
 
+    @Test
+    public void supports_primitive_method_parameters() throws IOException {
+        compile(new JavaSourceFromString("PrimitiveParameters", "" +
+                "package com.example;\n" +
+                "@fi.jumi.actors.generator.GenerateEventizer\n" +
+                "public interface PrimitiveParameters {\n" +
+                "    void primitives(boolean a, byte b, short c, int d, long e, char f, float g, double h);\n" +
+                "}"
+        ));
+
+        assertThat(new File(outputDir, "com/example/primitiveParameters/PrimitivesEvent.java"), exists());
+        assertThat(new File(outputDir, "com/example/primitiveParameters/PrimitivesEvent.class"), exists());
+    }
+
     @Test
     public void generates_eventizers_to_another_target_package() throws IOException {
         compile(new JavaSourceFromString("AnotherTargetPackage", "" +
@@ -0,0 +1,34 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.jfr;
+
+import jdk.jfr.*;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+@Name("fi.jumi.actors.ActorFailure")
+@Label("Actor Failure")
+@Category("Jumi Actors")
+@Description("An actor threw an exception when processing a message")
+@StackTrace(false)
+@NotThreadSafe
+class ActorFailureEvent extends Event {
+
+    @Label("Actor Class")
+    Class<?> actorClass;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Message ID")
+    @Description("Identity hash code of the message")
+    int messageId;
+
+    @Label("Exception Class")
+    Class<?> exceptionClass;
+
+    @Label("Exception Message")
+    String exceptionMessage;
+}
@@ -0,0 +1,39 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.jfr;
+
+import fi.jumi.actors.listeners.*;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Records the uncaught exceptions of actors as {@code fi.jumi.actors.ActorFailure} Flight Recorder events, and then
+ * lets another failure handler handle them.
+ *
+ * @see FlightRecorderMessageListener
+ */
+@ThreadSafe
+public class FlightRecorderFailureHandler implements FailureHandler {
+
+    private final FailureHandler failureHandler;
+
+    public FlightRecorderFailureHandler(FailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    @Override
+    public void uncaughtException(Object actor, Object message, Throwable exception) {
+        ActorFailureEvent event = new ActorFailureEvent();
+        if (event.shouldCommit()) {
+            event.actorClass = actor.getClass();
+            event.messageType = MessageTypes.describe(MessageTypes.typeOf(message));
+            event.messageId = System.identityHashCode(message);
+            event.exceptionClass = exception.getClass();
+            event.exceptionMessage = exception.getMessage();
+            event.commit();
+        }
+        failureHandler.uncaughtException(actor, message, exception);
+    }
+}
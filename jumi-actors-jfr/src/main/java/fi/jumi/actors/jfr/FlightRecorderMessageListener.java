@@ -0,0 +1,87 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.jfr;
+
+import fi.jumi.actors.listeners.*;
+
+import javax.annotation.concurrent.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Records the messages of actors as JDK Flight Recorder events, so that they can be seen in the same timeline as
+ * garbage collection, locks and I/O. Processing a message is recorded as a {@code fi.jumi.actors.MessageProcessed}
+ * event, with the actor class, the message type and the duration. Sending a message is recorded as a
+ * {@code fi.jumi.actors.MessageSent} event, which is disabled by default.
+ * <p>
+ * The events are configured like any other Flight Recorder events. By default only messages which take at least
+ * 10 ms to process are recorded; the events for shorter messages are dropped without formatting anything. When no
+ * recording is running, this listener does next to nothing.
+ *
+ * @see FlightRecorderFailureHandler
+ */
+@ThreadSafe
+public class FlightRecorderMessageListener implements MessageListener {
+
+    private final ThreadLocal<CurrentMessage> currentMessages = new ThreadLocal<CurrentMessage>() {
+        @Override
+        protected CurrentMessage initialValue() {
+            return new CurrentMessage();
+        }
+    };
+
+    @Override
+    public void onMessageSent(Object message) {
+        MessageSentEvent event = new MessageSentEvent();
+        if (event.shouldCommit()) {
+            event.messageType = MessageTypes.describe(MessageTypes.typeOf(message));
+            event.messageId = System.identityHashCode(message);
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onProcessingStarted(Object actor, Object message) {
+        MessageProcessedEvent event = new MessageProcessedEvent();
+        if (event.isEnabled()) {
+            CurrentMessage current = currentMessages.get();
+            current.event = event;
+            current.actor = actor;
+            current.message = message;
+            event.begin();
+        }
+    }
+
+    @Override
+    public void onProcessingFinished() {
+        CurrentMessage current = currentMessages.get();
+        MessageProcessedEvent event = current.event;
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.actorClass = current.actor.getClass();
+            event.messageType = MessageTypes.describe(MessageTypes.typeOf(current.message));
+            event.messageId = System.identityHashCode(current.message);
+            event.commit();
+        }
+        current.event = null;
+        current.actor = null;
+        current.message = null;
+    }
+
+    @Override
+    public Executor getListenedExecutor(Executor realExecutor) {
+        return new ListenedExecutor(realExecutor, this);
+    }
+
+
+    @NotThreadSafe
+    private static class CurrentMessage {
+        MessageProcessedEvent event;
+        Object actor;
+        Object message;
+    }
+}
@@ -0,0 +1,32 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.jfr;
+
+import jdk.jfr.*;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * By default only the messages which take at least 10 ms to process are recorded.
+ */
+@Name("fi.jumi.actors.MessageProcessed")
+@Label("Message Processed")
+@Category("Jumi Actors")
+@Description("An actor processed a message")
+@Threshold("10 ms")
+@StackTrace(false)
+@NotThreadSafe
+class MessageProcessedEvent extends Event {
+
+    @Label("Actor Class")
+    Class<?> actorClass;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Message ID")
+    @Description("Identity hash code of the message")
+    int messageId;
+}
@@ -0,0 +1,29 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.jfr;
+
+import jdk.jfr.*;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Disabled by default, because actors send too many messages for recording all of them.
+ */
+@Name("fi.jumi.actors.MessageSent")
+@Label("Message Sent")
+@Category("Jumi Actors")
+@Description("A message was sent to an actor")
+@Enabled(false)
+@StackTrace(false)
+@NotThreadSafe
+class MessageSentEvent extends Event {
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Message ID")
+    @Description("Identity hash code of the message")
+    int messageId;
+}
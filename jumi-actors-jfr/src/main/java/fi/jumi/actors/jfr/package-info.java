@@ -0,0 +1,11 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+/**
+ * Makes the messages of actors visible in JDK Flight Recorder recordings. Requires Java 8 update 262 or newer.
+ */
+@ParametersAreNonnullByDefault
+package fi.jumi.actors.jfr;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -0,0 +1,126 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.jfr;
+
+import fi.jumi.actors.listeners.FailureHandler;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.*;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class FlightRecorderMessageListenerTest {
+
+    private static final String SENT = "fi.jumi.actors.MessageSent";
+    private static final String PROCESSED = "fi.jumi.actors.MessageProcessed";
+    private static final String FAILURE = "fi.jumi.actors.ActorFailure";
+
+    @Rule
+    public final TemporaryFolder tempDir = new TemporaryFolder();
+
+    private final FlightRecorderMessageListener listener = new FlightRecorderMessageListener();
+    private final Recording recording = new Recording();
+
+    @After
+    public void closeRecording() {
+        recording.close();
+    }
+
+
+    @Test
+    public void records_processing_messages_with_the_actor_class_and_message_type() throws IOException {
+        recording.enable(PROCESSED).withThreshold(Duration.ZERO);
+        recording.start();
+        String message = "message";
+
+        listener.onProcessingStarted(new DummyActor(), message);
+        listener.onProcessingFinished();
+
+        RecordedEvent event = single(recordedEvents(PROCESSED));
+        assertThat(event.getClass("actorClass").getName(), is(DummyActor.class.getName()));
+        assertThat(event.getString("messageType"), is("java.lang.String"));
+        assertThat(event.getInt("messageId"), is(System.identityHashCode(message)));
+        assertThat(event.getThread().getJavaName(), is(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void messages_which_are_processed_faster_than_the_threshold_are_not_recorded() throws IOException {
+        recording.enable(PROCESSED).withThreshold(Duration.ofHours(1));
+        recording.start();
+
+        listener.onProcessingStarted(new DummyActor(), "message");
+        listener.onProcessingFinished();
+
+        assertThat(recordedEvents(PROCESSED), is(empty()));
+    }
+
+    @Test
+    public void sending_messages_is_not_recorded_by_default() throws IOException {
+        recording.start();
+
+        listener.onMessageSent("message");
+
+        assertThat(recordedEvents(SENT), is(empty()));
+    }
+
+    @Test
+    public void records_sending_messages_when_enabled() throws IOException {
+        recording.enable(SENT);
+        recording.start();
+
+        listener.onMessageSent("message");
+
+        assertThat(single(recordedEvents(SENT)).getString("messageType"), is("java.lang.String"));
+    }
+
+    @Test
+    public void records_failures_and_delegates_them_to_another_failure_handler() throws IOException {
+        recording.enable(FAILURE);
+        recording.start();
+        FailureHandler delegate = mock(FailureHandler.class);
+        DummyActor actor = new DummyActor();
+        IllegalStateException exception = new IllegalStateException("the failure");
+
+        new FlightRecorderFailureHandler(delegate).uncaughtException(actor, "message", exception);
+
+        RecordedEvent event = single(recordedEvents(FAILURE));
+        assertThat(event.getClass("actorClass").getName(), is(DummyActor.class.getName()));
+        assertThat(event.getClass("exceptionClass").getName(), is(IllegalStateException.class.getName()));
+        assertThat(event.getString("exceptionMessage"), is("the failure"));
+        verify(delegate).uncaughtException(actor, "message", exception);
+    }
+
+
+    // helpers
+
+    private List<RecordedEvent> recordedEvents(String eventName) throws IOException {
+        recording.stop();
+        Path file = tempDir.newFile("recording.jfr").toPath();
+        recording.dump(file);
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getEventType().getName().equals(eventName)) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events) {
+        assertThat(events, hasSize(1));
+        return events.get(0);
+    }
+
+    private static class DummyActor {
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright © 2011-2012, Esko Luontola <www.orfjackal.net>
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
 // This software is released under the Apache License 2.0.
 // The license text is at http://www.apache.org/licenses/LICENSE-2.0
 
@@ -19,7 +19,9 @@ public interface ActorThread {
      * class, the type of the parameter is {@code ActorRef<TheActorInterface>}.
      * <p>
      * All actors bound to the same {@code ActorThread} will be executed in the same {@link Thread}, so it is OK for
-     * them to share some mutable state when it is known that all the actors are bound to the same thread. A common
+     * them to share some mutable state when it is known that all the actors are bound to the same thread. (With
+     * {@link PooledActors} the thread may change between messages, but the messages are still processed one at a
+     * time, so the same holds.) A common
      * pattern is to pass an actor its own {@code ActorThread}, so that it can create short-lived actors for callbacks,
      * or a reference to itself, when communicating with other actors.
      * <p>
@@ -8,7 +8,9 @@ import fi.jumi.actors.eventizers.*;
 import fi.jumi.actors.listeners.*;
 import fi.jumi.actors.queue.*;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Entry point to this actors library. The actors container which coordinates communication between individual actors.
@@ -20,31 +22,98 @@ import javax.annotation.concurrent.*;
 @ThreadSafe
 public abstract class Actors {
 
+    // Cleared by setting it to null instead of removing it, because removing it would
+    // allocate a new thread-local entry every time it's set again for the next message.
     private static ThreadLocal<ActorThread> currentThread = new ThreadLocal<>();
 
+    // Message IDs are reserved in blocks, so that actor threads don't contend on the counter.
+    private static final int MESSAGE_ID_BLOCK = 1024;
+
     private final EventizerProvider eventizerProvider;
     private final FailureHandler failureHandler;
     private final MessageListener messageListener;
+    private final TracingMessageListener tracingListener; // null when messages are not traced
+    private final AtomicLong messageIdBlocks = new AtomicLong();
+    private final ThreadLocal<ProcessingContext> processingContexts = new ThreadLocal<ProcessingContext>() {
+        @Override
+        protected ProcessingContext initialValue() {
+            return new ProcessingContext();
+        }
+    };
 
     protected Actors(EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
         this.eventizerProvider = eventizerProvider;
         this.failureHandler = failureHandler;
         this.messageListener = messageListener;
+        this.tracingListener = messageListener instanceof TracingMessageListener
+                ? (TracingMessageListener) messageListener
+                : null;
     }
 
     /**
      * Creates a new {@link ActorThread} for running actors.
      */
     public ActorThread startActorThread() {
-        ActorThreadImpl actorThread = new ActorThreadImpl();
+        return startActorThread(MessageQueue::new);
+    }
+
+    /**
+     * Creates a new {@link ActorThread} for running actors, using a mailbox from the specified factory. Can be used to
+     * give performance critical actor threads a message queue implementation which suits their workload.
+     */
+    public ActorThread startActorThread(MailboxFactory mailboxFactory) {
+        ActorThreadImpl actorThread = newActorThread(null, mailboxFactory);
         startActorThread(actorThread);
         return actorThread;
     }
 
+    /**
+     * Creates a new {@link ActorThread} for running actors, with a name. While the actor thread is processing messages,
+     * the {@link Thread} which it runs on will have the same name, so that it can be identified in thread dumps and
+     * profilers. The name is not required to be unique.
+     */
+    public ActorThread startActorThread(String name) {
+        return startActorThread(name, MessageQueue::new);
+    }
+
+    /**
+     * Same as {@link #startActorThread(String)}, but using a mailbox from the specified factory.
+     */
+    public ActorThread startActorThread(String name, MailboxFactory mailboxFactory) {
+        ActorThreadImpl actorThread = newActorThread(name, mailboxFactory);
+        startActorThread(actorThread);
+        return actorThread;
+    }
+
+    // For containers which start some actor threads in other ways than through startActorThread(MessageProcessor)
+    ActorThreadImpl newActorThread(@Nullable String name, MailboxFactory mailboxFactory) {
+        return new ActorThreadImpl(name, mailboxFactory);
+    }
+
     // Package-private to avoid showing up in Javadocs and creating confusion with the overloaded version.
     // Also MessageProcessor is package-private, so anyways third parties cannot extend this class.
     abstract void startActorThread(MessageProcessor actorThread);
 
+    // Hook for containers which need to know when messages are sent to an actor thread.
+    // Called from the actor thread's constructor, so the actor thread must not yet be used here.
+    Mailbox<Runnable> newMailbox(MailboxFactory mailboxFactory, MessageProcessor actorThread) {
+        return mailboxFactory.newMailbox();
+    }
+
+    private TraceContext newTraceContext(ProcessingContext context) {
+        if (context.nextMessageId == context.messageIdLimit) {
+            // IDs start from 1, because 0 means that there is no parent message
+            context.nextMessageId = messageIdBlocks.getAndAdd(MESSAGE_ID_BLOCK) + 1;
+            context.messageIdLimit = context.nextMessageId + MESSAGE_ID_BLOCK;
+        }
+        long messageId = context.nextMessageId++;
+        TraceContext parent = context.trace;
+        if (parent == null) {
+            return new TraceContext(messageId, TraceContext.NO_PARENT, messageId, 0, null);
+        }
+        return new TraceContext(messageId, parent.getMessageId(), parent.getRootMessageId(), parent.getHopCount() + 1, context.actor);
+    }
+
     public static ActorThread currentThread() {
         ActorThread actorThread = currentThread.get();
         if (actorThread == null) {
@@ -55,9 +124,22 @@ public abstract class Actors {
 
 
     @ThreadSafe
-    private class ActorThreadImpl implements ActorThread, MessageProcessor {
+    class ActorThreadImpl implements ActorThread, MessageProcessor {
 
-        private final MessageQueue<Runnable> taskQueue = new MessageQueue<>();
+        private final String name;
+        private final Mailbox<Runnable> taskQueue;
+        private final MessageSender<Runnable> batchProcessor = this::runUnlessInterrupted;
+
+        public ActorThreadImpl(@Nullable String name, MailboxFactory mailboxFactory) {
+            this.name = name;
+            this.taskQueue = newMailbox(mailboxFactory, this);
+        }
+
+        @Nullable
+        @Override
+        public String getName() {
+            return name;
+        }
 
         @Override
         public <T> ActorRef<T> bindActor(Class<T> type, T rawActor) {
@@ -71,14 +153,38 @@ public abstract class Actors {
             taskQueue.send(new PoisonPill());
         }
 
-        public void send(MessageToActor<?> task) {
+        public void send(Runnable task) {
             taskQueue.send(task);
         }
 
         @Override
-        public void processNextMessage() throws InterruptedException {
-            Runnable task = taskQueue.take();
-            process(task);
+        public void processNextMessages(WaitStrategy waitStrategy, int maxMessages) throws InterruptedException {
+            Runnable task = waitStrategy.take(taskQueue);
+            currentThread.set(this);
+            try {
+                task.run();
+                taskQueue.drainTo(batchProcessor, maxMessages - 1);
+            } finally {
+                currentThread.set(null);
+            }
+        }
+
+        private void runUnlessInterrupted(Runnable task) {
+            // The actor thread stops immediately when interrupted, so the rest of the batch is discarded
+            // just like the messages which are still in the queue.
+            if (!Thread.currentThread().isInterrupted()) {
+                task.run();
+            }
+        }
+
+        @Override
+        public int processAvailableMessages(int maxMessages) {
+            currentThread.set(this);
+            try {
+                return taskQueue.drainTo(batchProcessor, maxMessages);
+            } finally {
+                currentThread.set(null);
+            }
         }
 
         @Override
@@ -92,13 +198,13 @@ public abstract class Actors {
         }
 
         private void process(Runnable task) {
-            // MessageToActor should already take care of handling uncaught exceptions,
+            // MessageToActorSender.process should already take care of handling uncaught exceptions,
             // so we don't need to do it here.
             currentThread.set(this);
             try {
                 task.run();
             } finally {
-                currentThread.remove();
+                currentThread.set(null);
             }
         }
     }
@@ -107,32 +213,58 @@ public abstract class Actors {
     private class MessageToActorSender<T> implements MessageSender<Event<T>> {
         private final ActorThreadImpl actorThread;
         private final T rawActor;
+        private final MessageSender<Event<T>> recipient = this::process;
 
         public MessageToActorSender(ActorThreadImpl actorThread, T rawActor) {
             this.actorThread = actorThread;
             this.rawActor = rawActor;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public void send(final Event<T> message) {
+            if (tracingListener != null) {
+                sendTraced(message);
+                return;
+            }
             messageListener.onMessageSent(message);
-            actorThread.send(new MessageToActor<>(rawActor, message));
+            if (message instanceof AddressableEvent && ((AddressableEvent<T>) message).trySetRecipient(recipient)) {
+                // the event carries its recipient, so it can go into the mailbox without an envelope
+                actorThread.send((AddressableEvent<T>) message);
+            } else {
+                actorThread.send(new MessageToActor<>(this, message));
+            }
         }
-    }
-
-    @NotThreadSafe
-    private class MessageToActor<T> implements Runnable {
-        private final T rawActor;
-        private final Event<T> message;
 
-        public MessageToActor(T rawActor, Event<T> message) {
-            this.rawActor = rawActor;
-            this.message = message;
+        private void sendTraced(Event<T> message) {
+            // the trace context needs an envelope, so also addressable events are wrapped in one
+            TraceContext trace = newTraceContext(processingContexts.get());
+            tracingListener.onMessageSent(message, trace);
+            actorThread.send(new TracedMessageToActor<>(this, message, trace));
         }
 
-        @Override
-        public void run() {
+        private void process(Event<T> message) {
             messageListener.onProcessingStarted(rawActor, message);
+            fireOnActor(message);
+        }
+
+        private void processTraced(Event<T> message, TraceContext trace) {
+            ProcessingContext context = processingContexts.get();
+            TraceContext previousTrace = context.trace;
+            Object previousActor = context.actor;
+            context.trace = trace;
+            context.actor = rawActor;
+            try {
+                tracingListener.onProcessingStarted(rawActor, message, trace);
+                fireOnActor(message);
+            } finally {
+                context.trace = previousTrace;
+                context.actor = previousActor;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void fireOnActor(Event<T> message) {
             try {
                 message.fireOn(rawActor);
             } catch (Throwable t) {
@@ -140,15 +272,70 @@ public abstract class Actors {
             } finally {
                 messageListener.onProcessingFinished();
             }
+            if (message instanceof RecyclableEvent) {
+                ((RecyclableEvent<T>) message).recycle();
+            }
+        }
+    }
+
+    @NotThreadSafe
+    private static class MessageToActor<T> implements Runnable, Envelope {
+        private final MessageToActorSender<T> sender;
+        private final Event<T> message;
+
+        public MessageToActor(MessageToActorSender<T> sender, Event<T> message) {
+            this.sender = sender;
+            this.message = message;
+        }
+
+        @Override
+        public void run() {
+            sender.process(message);
+        }
+
+        @Override
+        public Object getMessage() {
+            return message;
+        }
+    }
+
+    @NotThreadSafe
+    private static class TracedMessageToActor<T> implements Runnable, Envelope {
+        private final MessageToActorSender<T> sender;
+        private final Event<T> message;
+        private final TraceContext trace;
+
+        public TracedMessageToActor(MessageToActorSender<T> sender, Event<T> message, TraceContext trace) {
+            this.sender = sender;
+            this.message = message;
+            this.trace = trace;
+        }
+
+        @Override
+        public void run() {
+            sender.processTraced(message, trace);
+        }
+
+        @Override
+        public Object getMessage() {
+            return message;
         }
     }
 
     @Immutable
-    private static class PoisonPill implements Runnable {
+    private static class PoisonPill implements Runnable, LastMessage {
 
         @Override
         public void run() {
             Thread.currentThread().interrupt();
         }
     }
+
+    @NotThreadSafe
+    private static class ProcessingContext {
+        TraceContext trace;
+        Object actor;
+        long nextMessageId;
+        long messageIdLimit;
+    }
 }
@@ -1,12 +1,21 @@
-// Copyright © 2011-2012, Esko Luontola <www.orfjackal.net>
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
 // This software is released under the Apache License 2.0.
 // The license text is at http://www.apache.org/licenses/LICENSE-2.0
 
 package fi.jumi.actors;
 
+import fi.jumi.actors.queue.WaitStrategy;
+
+import javax.annotation.Nullable;
+
 interface MessageProcessor {
 
-    void processNextMessage() throws InterruptedException;
+    @Nullable
+    String getName();
+
+    void processNextMessages(WaitStrategy waitStrategy, int maxMessages) throws InterruptedException;
+
+    int processAvailableMessages(int maxMessages);
 
     boolean processNextMessageIfAny();
 }
@@ -1,4 +1,4 @@
-// Copyright © 2011-2012, Esko Luontola <www.orfjackal.net>
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
 // This software is released under the Apache License 2.0.
 // The license text is at http://www.apache.org/licenses/LICENSE-2.0
 
@@ -6,48 +6,119 @@ package fi.jumi.actors;
 
 import fi.jumi.actors.eventizers.EventizerProvider;
 import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
 
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.concurrent.Executor;
+import java.util.concurrent.*;
 
 
 /**
  * Multi-threaded actors container for production use. Each {@link ActorThread} will be backed by a thread from the
- * {@link Executor} which is given to the constructor of this class.
+ * {@link Executor} which is given to the constructor of this class. How those threads wait for messages when idle is
+ * decided by the {@link WaitStrategy}, which defaults to {@link BlockingWaitStrategy}.
+ * <p>
+ * Alternatively each {@link ActorThread} can be given its own thread from a {@link ThreadFactory}. The thread will
+ * finish when the actor thread is stopped. On Java 21 and newer, passing {@code Thread.ofVirtual().factory()} backs
+ * every actor thread with a virtual thread, so that mostly idle actor threads will not each reserve a platform thread.
+ * Use {@link NamedThreadFactory} to tell the threads apart from other threads in thread dumps.
  */
 @ThreadSafe
 public class MultiThreadedActors extends Actors {
 
+    /**
+     * How many messages are processed per one read from the queue. Costs such as taking messages from the queue and
+     * setting up {@link Actors#currentThread()} are paid only once per batch.
+     */
+    private static final int BATCH_SIZE = 64;
+
     private final Executor executor;
+    private final WaitStrategy waitStrategy;
 
     public MultiThreadedActors(Executor executor, EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        this(executor, new BlockingWaitStrategy(), eventizerProvider, failureHandler, messageListener);
+    }
+
+    public MultiThreadedActors(ThreadFactory threadFactory, EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        this(threadFactory, new BlockingWaitStrategy(), eventizerProvider, failureHandler, messageListener);
+    }
+
+    public MultiThreadedActors(ThreadFactory threadFactory, WaitStrategy waitStrategy, EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        this(new ThreadPerTaskExecutor(threadFactory), waitStrategy, eventizerProvider, failureHandler, messageListener);
+    }
+
+    public MultiThreadedActors(Executor executor, WaitStrategy waitStrategy, EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
         super(eventizerProvider, failureHandler, messageListener);
         this.executor = executor;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Creates a new {@link ActorThread} which runs on its own thread from the specified factory instead of this
+     * container's {@link Executor}. Can be used to isolate latency critical actor threads from the rest, for example
+     * with a factory whose threads pin themselves to specific CPU cores before running the given {@link Runnable}.
+     * The thread will finish when the actor thread is stopped.
+     */
+    public ActorThread startActorThread(ThreadFactory threadFactory) {
+        return startActorThread(threadFactory, MessageQueue::new);
+    }
+
+    /**
+     * Same as {@link #startActorThread(ThreadFactory)}, but using a mailbox from the specified factory.
+     */
+    public ActorThread startActorThread(ThreadFactory threadFactory, MailboxFactory mailboxFactory) {
+        ActorThreadImpl actorThread = newActorThread(null, mailboxFactory);
+        new ThreadPerTaskExecutor(threadFactory).execute(new BlockingActorProcessor(actorThread, waitStrategy));
+        return actorThread;
     }
 
     @Override
     void startActorThread(MessageProcessor actorThread) {
-        executor.execute(new BlockingActorProcessor(actorThread));
+        executor.execute(new BlockingActorProcessor(actorThread, waitStrategy));
     }
 
 
     @ThreadSafe
     private static class BlockingActorProcessor implements Runnable {
         private final MessageProcessor actorThread;
+        private final WaitStrategy waitStrategy;
 
-        public BlockingActorProcessor(MessageProcessor actorThread) {
+        public BlockingActorProcessor(MessageProcessor actorThread, WaitStrategy waitStrategy) {
             this.actorThread = actorThread;
+            this.waitStrategy = waitStrategy;
         }
 
         @Override
         public void run() {
+            Thread thread = Thread.currentThread();
+            String originalName = thread.getName();
+            String name = actorThread.getName();
+            if (name != null) {
+                thread.setName(name);
+            }
             try {
                 while (!Thread.interrupted()) {
-                    actorThread.processNextMessage();
+                    actorThread.processNextMessages(waitStrategy, BATCH_SIZE);
                 }
             } catch (InterruptedException e) {
                 // actor was told to exit
+            } finally {
+                // the thread may be reused by the executor
+                thread.setName(originalName);
             }
         }
     }
+
+    @ThreadSafe
+    private static class ThreadPerTaskExecutor implements Executor {
+        private final ThreadFactory threadFactory;
+
+        public ThreadPerTaskExecutor(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            threadFactory.newThread(command).start();
+        }
+    }
 }
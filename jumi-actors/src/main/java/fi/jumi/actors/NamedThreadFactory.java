@@ -0,0 +1,42 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ThreadFactory} which gives its threads unique names such as {@code jumi-actors-1-thread-1}. Use it with
+ * {@link MultiThreadedActors} or with an {@link java.util.concurrent.ExecutorService} to tell the actor threads apart
+ * from other threads in thread dumps and profilers.
+ */
+@ThreadSafe
+public class NamedThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger factoryNumber = new AtomicInteger(1);
+
+    private final String namePrefix;
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    /**
+     * Names the threads {@code jumi-actors-N-thread-M}, where N is unique to this factory and M to the thread.
+     */
+    public NamedThreadFactory() {
+        this("jumi-actors-" + factoryNumber.getAndIncrement());
+    }
+
+    /**
+     * Names the threads {@code <poolName>-thread-M}, where M is unique to the thread.
+     */
+    public NamedThreadFactory(String poolName) {
+        this.namePrefix = poolName + "-thread-";
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        return new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+    }
+}
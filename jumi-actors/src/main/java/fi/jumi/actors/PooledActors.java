@@ -0,0 +1,167 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors;
+
+import fi.jumi.actors.eventizers.EventizerProvider;
+import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.*;
+
+
+/**
+ * Multi-threaded actors container which shares a pool of threads between all {@link ActorThread}s. An actor thread
+ * does not reserve a thread of its own while it's idle; it is given to the {@link Executor} when its mailbox goes
+ * from empty to non-empty, after which it processes at most a quota of messages and then yields the thread to other
+ * actor threads. Use this instead of {@link MultiThreadedActors} when there are many more actor threads than CPU
+ * cores.
+ * <p>
+ * The messages of one actor thread are never processed concurrently, but consecutive batches may be processed in
+ * different threads of the pool. A work-stealing executor, such as a {@code ForkJoinPool} in async mode, will usually
+ * keep an actor thread on the thread which sent it messages.
+ * <p>
+ * Interrupting the thread which is processing an actor's message stops that actor thread, the same way as with the
+ * other containers. The interrupted status is cleared before the pool thread is returned to the executor.
+ * <p>
+ * If the executor rejects an actor thread, the exception is thrown to whoever sent the message which was to schedule
+ * it. The messages stay in the mailbox, and the next message which is sent to the actor thread schedules it again.
+ */
+@ThreadSafe
+public class PooledActors extends Actors {
+
+    private static final int DEFAULT_MESSAGE_QUOTA = 64;
+
+    private final Executor executor;
+    private final int messageQuota;
+
+    public PooledActors(Executor executor, EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        this(executor, DEFAULT_MESSAGE_QUOTA, eventizerProvider, failureHandler, messageListener);
+    }
+
+    /**
+     * @param messageQuota how many messages an actor thread may process before it must give its thread to other actor
+     *                     threads. Lower values are fairer, higher values have less scheduling overhead.
+     */
+    public PooledActors(Executor executor, int messageQuota, EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        super(eventizerProvider, failureHandler, messageListener);
+        if (messageQuota < 1) {
+            throw new IllegalArgumentException("message quota must be at least 1, but was " + messageQuota);
+        }
+        this.executor = executor;
+        this.messageQuota = messageQuota;
+    }
+
+    @Override
+    Mailbox<Runnable> newMailbox(MailboxFactory mailboxFactory, MessageProcessor actorThread) {
+        Mailbox<Runnable> mailbox = mailboxFactory.newMailbox();
+        if (mailbox instanceof ThreadBoundMailbox) {
+            // it tells the senders apart by their threads, but here any pool thread may send or receive the messages
+            throw new IllegalArgumentException(mailbox.getClass().getSimpleName() + " cannot be used with " + getClass().getSimpleName());
+        }
+        return new SchedulingMailbox(mailbox, actorThread, executor, messageQuota);
+    }
+
+    @Override
+    void startActorThread(MessageProcessor actorThread) {
+        // noop; actor threads are scheduled when they are sent messages
+    }
+
+
+    @ThreadSafe
+    private static class SchedulingMailbox implements Mailbox<Runnable>, Runnable {
+        private final Mailbox<Runnable> mailbox;
+        private final MessageProcessor actorThread;
+        private final Executor executor;
+        private final int messageQuota;
+
+        /**
+         * Number of messages sent but not yet taken. The sender who changes it from zero schedules the actor thread,
+         * and only the actor thread itself reschedules it after that, so it is never scheduled twice at the same time.
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * Set when the executor rejected the actor thread, so that the next sender schedules it again.
+         */
+        private final AtomicBoolean unscheduled = new AtomicBoolean(false);
+        private volatile boolean stopped = false;
+
+        public SchedulingMailbox(Mailbox<Runnable> mailbox, MessageProcessor actorThread, Executor executor, int messageQuota) {
+            this.mailbox = mailbox;
+            this.actorThread = actorThread;
+            this.executor = executor;
+            this.messageQuota = messageQuota;
+        }
+
+        @Override
+        public void send(Runnable message) {
+            mailbox.send(message);
+            if (pending.getAndIncrement() == 0 || unscheduled.compareAndSet(true, false)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                unscheduled.set(true);
+                throw e;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (stopped) {
+                // leaves the pending count above zero, so that the actor thread will not be scheduled again
+                return;
+            }
+            int taken = processAvailableMessages();
+            if (Thread.interrupted()) {
+                stopped = true;
+                return;
+            }
+            if (pending.addAndGet(-taken) > 0) {
+                schedule();
+            }
+        }
+
+        private int processAvailableMessages() {
+            String name = actorThread.getName();
+            if (name == null) {
+                return actorThread.processAvailableMessages(messageQuota);
+            }
+            Thread thread = Thread.currentThread();
+            String originalName = thread.getName();
+            thread.setName(name);
+            try {
+                return actorThread.processAvailableMessages(messageQuota);
+            } finally {
+                thread.setName(originalName);
+            }
+        }
+
+        // The actor thread reads its messages through these methods, so they are already counted by run()
+
+        @Override
+        public Runnable take() throws InterruptedException {
+            return mailbox.take();
+        }
+
+        @Nullable
+        @Override
+        public Runnable poll() {
+            return mailbox.poll();
+        }
+
+        @Override
+        public int drainTo(MessageSender<? super Runnable> target, int maxMessages) {
+            return mailbox.drainTo(target, maxMessages);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers;
+
+import fi.jumi.actors.queue.MessageSender;
+
+/**
+ * {@link Event} which carries its recipient, so that the actors container can put it into an actor thread's mailbox
+ * as it is, instead of wrapping it in an envelope which knows the actor.
+ * <p>
+ * The container sets the recipient when the event is sent, after which running the event must clear the recipient
+ * and then pass the event to it. The same event object may be sent many times and to many actors, for example by
+ * forwarding it, so only one recipient at a time may be stored in the event; while it has a recipient, the container
+ * wraps the event in an envelope as usual.
+ */
+public interface AddressableEvent<T> extends Event<T>, Runnable {
+
+    /**
+     * Sets the recipient unless the event already has one, i.e. it has been sent and not yet run. Must be thread-safe.
+     *
+     * @return false if the event already has a recipient, in which case it must not be put into a mailbox as it is
+     */
+    boolean trySetRecipient(MessageSender<Event<T>> recipient);
+}
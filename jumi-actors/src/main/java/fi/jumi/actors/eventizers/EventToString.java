@@ -5,28 +5,127 @@
 package fi.jumi.actors.eventizers;
 
 import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.nio.CharBuffer;
 import java.nio.charset.*;
 
+/**
+ * Formats events as method calls, for example {@code TheClass.theMethod("foo", 123)}, escaping the characters which
+ * cannot be shown in the default charset.
+ * <p>
+ * The static methods reuse a per-thread instance, so {@link #formatTo} does not produce garbage apart from calling
+ * {@code toString()} on those arguments which are not strings, primitive wrappers or {@code null}.
+ */
 @NotThreadSafe
 public class EventToString {
 
+    private static final int MAX_CACHED_CAPACITY = 8 * 1024;
+
+    private static final ThreadLocal<EventToString> cachedInstances = new ThreadLocal<EventToString>() {
+        @Override
+        protected EventToString initialValue() {
+            return new EventToString(Charset.defaultCharset());
+        }
+    };
+
     private final CharsetEncoder charsetEncoder;
-    private final StringBuilder result = new StringBuilder();
+    private final boolean canEncodePrintableAscii;
+    private StringBuilder result = new StringBuilder();
+    private boolean inUse = false;
 
     public EventToString(Charset charset) {
         charsetEncoder = charset.newEncoder();
+        canEncodePrintableAscii = canEncodeAll(charsetEncoder, ' ', '~');
+    }
+
+    private static boolean canEncodeAll(CharsetEncoder encoder, char first, char last) {
+        for (char ch = first; ch <= last; ch++) {
+            if (!encoder.canEncode(ch)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static String format(String className, String methodName, Object... args) {
-        return new EventToString(Charset.defaultCharset())
-                .formatMethodCall(className, methodName, args)
-                .build();
+        EventToString formatter = acquire();
+        try {
+            return formatter
+                    .formatMethodCall(className, methodName, args)
+                    .build();
+        } finally {
+            formatter.release();
+        }
+    }
+
+    /**
+     * Same as {@link #format}, but appends the result to {@code out} instead of creating a string.
+     */
+    public static void formatTo(StringBuilder out, String className, String methodName, Object... args) {
+        EventToString formatter = acquire();
+        try {
+            formatter.formatMethodCall(className, methodName, args);
+            out.append(formatter.result);
+        } finally {
+            formatter.release();
+        }
+    }
+
+    /**
+     * Same as {@link #format}, but appends the result to {@code out} instead of creating a string. Appending to a
+     * {@link StringBuilder} or a {@link CharBuffer} copies the characters directly; other {@link Appendable}s may
+     * create a temporary string, depending on their implementation.
+     */
+    public static void formatTo(Appendable out, String className, String methodName, Object... args) throws IOException {
+        EventToString formatter = acquire();
+        try {
+            formatter.formatMethodCall(className, methodName, args);
+            formatter.appendTo(out);
+        } finally {
+            formatter.release();
+        }
+    }
+
+    private static EventToString acquire() {
+        EventToString formatter = cachedInstances.get();
+        if (formatter.inUse) {
+            // an argument's toString() is formatting another event on the same thread
+            return new EventToString(Charset.defaultCharset());
+        }
+        formatter.inUse = true;
+        return formatter;
+    }
+
+    private void release() {
+        inUse = false;
+        if (result.capacity() > MAX_CACHED_CAPACITY) {
+            // don't keep memory reserved after formatting one exceptionally large event
+            result = new StringBuilder();
+        } else {
+            result.setLength(0);
+        }
     }
 
     public String build() {
         return result.toString();
     }
 
+    /**
+     * Appends the characters formatted so far to {@code out}.
+     */
+    public void appendTo(Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(result);
+        } else if (out instanceof CharBuffer) {
+            CharBuffer buffer = (CharBuffer) out;
+            for (int i = 0; i < result.length(); i++) {
+                buffer.put(result.charAt(i));
+            }
+        } else {
+            out.append(result);
+        }
+    }
+
     public EventToString formatMethodCall(String className, String methodName, Object... args) {
         result.append(className);
         result.append('.');
@@ -43,10 +142,17 @@ public class EventToString {
     }
 
     private void formatArg(Object arg) {
+        // the primitive wrappers are appended without calling their toString(), to avoid creating garbage
         if (arg instanceof String) {
             result.append('"');
             escapeSpecialChars((String) arg);
             result.append('"');
+        } else if (arg instanceof Integer) {
+            result.append(((Integer) arg).intValue());
+        } else if (arg instanceof Long) {
+            result.append(((Long) arg).longValue());
+        } else if (arg instanceof Boolean) {
+            result.append(((Boolean) arg).booleanValue());
         } else {
             result.append(arg);
         }
@@ -85,17 +191,36 @@ public class EventToString {
                 return;
         }
 
-        if (Character.isISOControl(ch) || isUnmappable(ch)) {
+        if (isPrintableAscii(ch) && canEncodePrintableAscii) {
+            result.append(ch);
+        } else if (Character.isISOControl(ch) || isUnmappable(ch)) {
             String mask = "\\u0000";
-            String hex = Integer.toHexString(ch);
-            result.append(mask, 0, mask.length() - hex.length());
-            result.append(hex);
+            result.append(mask, 0, mask.length() - hexDigits(ch));
+            appendHex(ch);
         } else {
             result.append(ch);
         }
     }
 
+    private static boolean isPrintableAscii(char ch) {
+        return ch >= ' ' && ch <= '~';
+    }
+
     private boolean isUnmappable(char ch) {
         return !charsetEncoder.canEncode(ch);
     }
+
+    private static int hexDigits(char ch) {
+        int digits = 1;
+        while ((ch >>>= 4) != 0) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void appendHex(char ch) {
+        for (int shift = (hexDigits(ch) - 1) * 4; shift >= 0; shift -= 4) {
+            result.append(Character.forDigit((ch >>> shift) & 0xf, 16));
+        }
+    }
 }
@@ -0,0 +1,16 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers;
+
+/**
+ * {@link Event} which can append the same characters as its {@link #toString()} to a builder, so that logging it does
+ * not need to create a string.
+ *
+ * @see EventToString#formatTo(StringBuilder, String, String, Object...)
+ */
+public interface FormattableEvent<T> extends Event<T> {
+
+    void formatTo(StringBuilder out);
+}
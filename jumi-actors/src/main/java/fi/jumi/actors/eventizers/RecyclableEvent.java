@@ -0,0 +1,30 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers;
+
+/**
+ * {@link Event} which is reused for sending other messages after it has been processed, so that sending messages does
+ * not produce garbage.
+ * <p>
+ * Ownership rules: The frontend gives the event to the actors container when it sends it. The container owns the
+ * event until it has fired it on the actor and notified the {@link fi.jumi.actors.listeners.MessageListener} and
+ * {@link fi.jumi.actors.listeners.FailureHandler} about it, after which the container calls {@link #recycle()} and
+ * may not use the event anymore. Message listeners and failure handlers must not keep references to recyclable events
+ * after their callback returns; they should copy what they need, for example using {@link #toString()}. Serializing
+ * an event copies it, so a serialized event is unaffected by recycling. Only the sending thread takes events from its
+ * pool, so a recyclable event is never shared by two messages which are in flight at the same time, unless somebody
+ * breaks these rules by sending the same event again.
+ *
+ * @see fi.jumi.actors.listeners.MessageListener
+ * @see fi.jumi.actors.eventizers.bytecode.BytecodeEventizer#BytecodeEventizer(Class, boolean)
+ */
+public interface RecyclableEvent<T> extends Event<T> {
+
+    /**
+     * Called by the actors container after it has processed the event. Makes the event available for sending other
+     * messages.
+     */
+    void recycle();
+}
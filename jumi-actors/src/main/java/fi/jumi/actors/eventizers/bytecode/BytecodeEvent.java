@@ -0,0 +1,78 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.eventizers.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEvent;
+import fi.jumi.actors.queue.MessageSender;
+import org.objectweb.asm.Type;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Superclass of the event classes generated by {@link BytecodeEventizer}. Not to be used directly.
+ * <p>
+ * The generated classes live in a class loader of their own, so they are serialized as {@link DynamicEvent}s which
+ * can be deserialized anywhere that the actor interface is available.
+ * <p>
+ * When recycling is enabled, the generated event classes extend {@link RecyclableBytecodeEvent} instead.
+ */
+@NotThreadSafe
+public abstract class BytecodeEvent<T> implements AddressableEvent<T>, FormattableEvent<T>, Serializable {
+
+    private transient volatile MessageSender<Event<T>> recipient;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<BytecodeEvent, MessageSender> RECIPIENT =
+            AtomicReferenceFieldUpdater.newUpdater(BytecodeEvent.class, MessageSender.class, "recipient");
+
+    protected abstract Class<T> getActorType();
+
+    protected abstract String getMethodName();
+
+    protected abstract String getMethodDescriptor();
+
+    protected abstract Object[] getArguments();
+
+    @Override
+    public boolean trySetRecipient(MessageSender<Event<T>> recipient) {
+        // the event is otherwise not thread-safe, but it may be forwarded to actors in other threads
+        return RECIPIENT.compareAndSet(this, null, recipient);
+    }
+
+    @Override
+    public void run() {
+        MessageSender<Event<T>> recipient = this.recipient;
+        this.recipient = null;
+        recipient.send(this);
+    }
+
+    @Override
+    public void formatTo(StringBuilder out) {
+        EventToString.formatTo(out, getActorType().getSimpleName(), getMethodName(), getArguments());
+    }
+
+    @Override
+    public String toString() {
+        return EventToString.format(getActorType().getSimpleName(), getMethodName(), getArguments());
+    }
+
+    protected final Object writeReplace() throws ObjectStreamException {
+        return new DynamicEvent<T>(getMethod(), getArguments());
+    }
+
+    private Method getMethod() throws ObjectStreamException {
+        for (Method method : getActorType().getMethods()) {
+            if (method.getName().equals(getMethodName())
+                    && Type.getMethodDescriptor(method).equals(getMethodDescriptor())) {
+                return method;
+            }
+        }
+        throw new InvalidObjectException("method " + getMethodName() + getMethodDescriptor() + " not found in " + getActorType());
+    }
+}
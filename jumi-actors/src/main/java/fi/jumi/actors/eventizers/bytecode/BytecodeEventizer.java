@@ -0,0 +1,136 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.Promise;
+import fi.jumi.actors.eventizers.*;
+import fi.jumi.actors.eventizers.dynamic.EventToDynamicListener;
+import fi.jumi.actors.queue.MessageSender;
+
+import javax.annotation.concurrent.Immutable;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Supports actor interfaces by generating at runtime the same kind of classes as the {@code jumi-actors-generator}
+ * annotation processor generates at compile time, so that no reflection is used to send and receive messages and the
+ * arguments are not boxed. The classes are generated when this eventizer is created.
+ * <p>
+ * The actor interface and all its parameter types must be public, and its methods must return void or a
+ * {@link Promise} (or a supertype of it such as {@link java.util.concurrent.Future}). Use
+ * {@link #isSupported} to check that, or use {@link BytecodeEventizerProvider} which falls back to reflection for the
+ * unsupported actor interfaces.
+ */
+@Immutable
+public class BytecodeEventizer<T> implements Eventizer<T> {
+
+    private static final String GENERATED_PACKAGE = "fi.jumi.actors.eventizers.bytecode.generated";
+
+    private final Class<T> type;
+    private final Constructor<?> frontendConstructor;
+
+    public BytecodeEventizer(Class<T> type) {
+        this(type, false);
+    }
+
+    /**
+     * @param recycleEvents whether the events may be reused after they have been processed; see {@link RecyclableEvent}
+     *                      for the rules which the message listeners and failure handlers must then follow. Events of
+     *                      methods which return a {@link Promise} are never recycled.
+     */
+    public BytecodeEventizer(Class<T> type, boolean recycleEvents) {
+        Eventizers.validateActorInterface(type);
+        if (!isSupported(type)) {
+            throw new IllegalArgumentException("bytecode can be generated only for public actor interfaces " +
+                    "whose methods return void or Promise and take public parameter types, but got " + type);
+        }
+        this.type = type;
+
+        GeneratedClassLoader loader = new GeneratedClassLoader(type);
+        String stubsPackage = GENERATED_PACKAGE + "." + lowerCamel(type.getSimpleName());
+        Method[] methods = type.getMethods();
+        String[] eventClassNames = new String[methods.length];
+        Set<String> usedNames = new HashSet<>();
+        for (int i = 0; i < methods.length; i++) {
+            String name = stubsPackage + "." + upperCamel(methods[i].getName()) + "Event";
+            for (int overload = 2; !usedNames.add(name); overload++) {
+                name = stubsPackage + "." + upperCamel(methods[i].getName()) + "Event" + overload;
+            }
+            eventClassNames[i] = name;
+            loader.defineClass(name, BytecodeGenerator.event(name, type, methods[i], recycleEvents));
+        }
+        String frontendName = stubsPackage + "." + type.getSimpleName() + "ToEvent";
+        Class<?> frontend = loader.defineClass(frontendName, BytecodeGenerator.frontend(frontendName, type, methods, eventClassNames, recycleEvents));
+        try {
+            this.frontendConstructor = frontend.getConstructor(MessageSender.class);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Tells whether bytecode can be generated for the actor interface. The generated classes live in a class loader of
+     * their own, so they can use only public types.
+     */
+    public static boolean isSupported(Class<?> type) {
+        if (!type.isInterface() || !isPublic(type)) {
+            return false;
+        }
+        for (Method method : type.getMethods()) {
+            Class<?> returnType = method.getReturnType();
+            if (!returnType.equals(Void.TYPE) && !returnType.isAssignableFrom(Promise.class)) {
+                return false;
+            }
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (!isPublic(parameterType)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String lowerCamel(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String upperCamel(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @Override
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public T newFrontend(MessageSender<Event<T>> target) {
+        try {
+            return type.cast(frontendConstructor.newInstance(target));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public MessageSender<Event<T>> newBackend(T target) {
+        return new EventToDynamicListener<>(target);
+    }
+}
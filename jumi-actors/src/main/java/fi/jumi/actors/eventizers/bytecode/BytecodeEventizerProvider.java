@@ -0,0 +1,49 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.eventizers.*;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizer;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Supports all actor interfaces by generating bytecode at runtime. Falls back to reflection for the actor interfaces
+ * which are not {@linkplain BytecodeEventizer#isSupported supported} by {@link BytecodeEventizer}.
+ */
+@Immutable
+public class BytecodeEventizerProvider implements EventizerProvider {
+
+    private final ConcurrentHashMap<Class<?>, Eventizer<?>> cache = new ConcurrentHashMap<>();
+    private final boolean recycleEvents;
+
+    public BytecodeEventizerProvider() {
+        this(false);
+    }
+
+    /**
+     * @param recycleEvents see {@link BytecodeEventizer#BytecodeEventizer(Class, boolean)}
+     */
+    public BytecodeEventizerProvider(boolean recycleEvents) {
+        this.recycleEvents = recycleEvents;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Eventizer<T> getEventizerForType(Class<T> type) {
+        Eventizer<T> eventizer = (Eventizer<T>) cache.get(type);
+        if (eventizer == null) {
+            eventizer = BytecodeEventizer.isSupported(type)
+                    ? new BytecodeEventizer<>(type, recycleEvents)
+                    : new DynamicEventizer<>(type);
+            Eventizer<T> previous = (Eventizer<T>) cache.putIfAbsent(type, eventizer);
+            if (previous != null) {
+                eventizer = previous;
+            }
+        }
+        return eventizer;
+    }
+}
@@ -0,0 +1,345 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.Promise;
+import fi.jumi.actors.queue.MessageSender;
+import org.objectweb.asm.*;
+
+import javax.annotation.concurrent.Immutable;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates the same classes as {@code fi.jumi.actors.generator.EventStubGenerator}, but as bytecode: a frontend
+ * which implements the actor interface, and for each method an event class which stores the method's arguments in
+ * typed fields and calls the method in {@code fireOn}. Methods which return a {@link Promise} get also a
+ * {@link Promise.Deferred} which is completed with the method's return value.
+ * <p>
+ * Recyclable event classes extend {@link RecyclableBytecodeEvent} and have mutable fields, and instead of a
+ * constructor the frontend calls their static {@code obtain} method, which takes an event from the sending thread's
+ * pool and fills in its fields.
+ */
+@Immutable
+class BytecodeGenerator {
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String SUPERCLASS = Type.getInternalName(BytecodeEvent.class);
+    private static final String RECYCLABLE_SUPERCLASS = Type.getInternalName(RecyclableBytecodeEvent.class);
+    private static final String SENDER = Type.getInternalName(MessageSender.class);
+    private static final String SENDER_FIELD = "target";
+    private static final String PROMISE = Type.getInternalName(Promise.class);
+    private static final String DEFERRED = Type.getInternalName(Promise.Deferred.class);
+    private static final String DEFERRED_FIELD = "deferred";
+    private static final String POOLS_FIELD = "pools";
+    private static final String THREAD_LOCAL = Type.getInternalName(ThreadLocal.class);
+
+    private BytecodeGenerator() {
+        // utility class, not to be instantiated
+    }
+
+    public static byte[] frontend(String className, Class<?> actorType, Method[] methods, String[] eventClassNames, boolean recycleEvents) {
+        String name = internalName(className);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_6, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, null, OBJECT, new String[]{Type.getInternalName(actorType)});
+        cw.visitField(ACC_PRIVATE | ACC_FINAL, SENDER_FIELD, "L" + SENDER + ";", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(L" + SENDER + ";)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitFieldInsn(PUTFIELD, name, SENDER_FIELD, "L" + SENDER + ";");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        for (int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            String eventName = internalName(eventClassNames[i]);
+            Type[] arguments = Type.getArgumentTypes(method);
+            int deferredSlot = 1;
+            for (Type argument : arguments) {
+                deferredSlot += argument.getSize();
+            }
+
+            mv = cw.visitMethod(ACC_PUBLIC, method.getName(), Type.getMethodDescriptor(method), null, null);
+            mv.visitCode();
+            if (returnsPromise(method)) {
+                mv.visitMethodInsn(INVOKESTATIC, PROMISE, "defer", "()L" + DEFERRED + ";", false);
+                mv.visitVarInsn(ASTORE, deferredSlot);
+            }
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, SENDER_FIELD, "L" + SENDER + ";");
+            if (isRecyclable(method, recycleEvents)) {
+                loadArguments(mv, arguments, 1);
+                mv.visitMethodInsn(INVOKESTATIC, eventName, "obtain", Type.getMethodDescriptor(Type.getObjectType(eventName), arguments), false);
+            } else {
+                mv.visitTypeInsn(NEW, eventName);
+                mv.visitInsn(DUP);
+                loadArguments(mv, arguments, 1);
+                if (returnsPromise(method)) {
+                    mv.visitVarInsn(ALOAD, deferredSlot);
+                }
+                mv.visitMethodInsn(INVOKESPECIAL, eventName, "<init>", eventConstructorDescriptor(method), false);
+            }
+            mv.visitMethodInsn(INVOKEINTERFACE, SENDER, "send", "(L" + OBJECT + ";)V", true);
+            if (returnsPromise(method)) {
+                mv.visitVarInsn(ALOAD, deferredSlot);
+                mv.visitMethodInsn(INVOKEVIRTUAL, DEFERRED, "promise", "()L" + PROMISE + ";", false);
+                mv.visitInsn(ARETURN);
+            } else {
+                mv.visitInsn(RETURN);
+            }
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    public static byte[] event(String className, Class<?> actorType, Method method, boolean recycleEvents) {
+        String name = internalName(className);
+        Type actor = Type.getType(actorType);
+        Type[] arguments = Type.getArgumentTypes(method);
+        boolean recyclable = isRecyclable(method, recycleEvents);
+        String superclass = recyclable ? RECYCLABLE_SUPERCLASS : SUPERCLASS;
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_6, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, "L" + superclass + "<" + actor.getDescriptor() + ">;", superclass, null);
+        for (int i = 0; i < arguments.length; i++) {
+            cw.visitField(ACC_PRIVATE | (recyclable ? 0 : ACC_FINAL), fieldName(i), arguments[i].getDescriptor(), null, null).visitEnd();
+        }
+        if (returnsPromise(method)) {
+            cw.visitField(ACC_PRIVATE | ACC_FINAL | ACC_TRANSIENT, DEFERRED_FIELD, "L" + DEFERRED + ";", null, null).visitEnd();
+        }
+
+        MethodVisitor mv;
+        if (recyclable) {
+            generatePooling(cw, name, arguments);
+        } else {
+            // constructor
+            mv = cw.visitMethod(ACC_PUBLIC, "<init>", eventConstructorDescriptor(method), null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, SUPERCLASS, "<init>", "()V", false);
+            int slot = 1;
+            for (int i = 0; i < arguments.length; i++) {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(arguments[i].getOpcode(ILOAD), slot);
+                mv.visitFieldInsn(PUTFIELD, name, fieldName(i), arguments[i].getDescriptor());
+                slot += arguments[i].getSize();
+            }
+            if (returnsPromise(method)) {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, slot);
+                mv.visitFieldInsn(PUTFIELD, name, DEFERRED_FIELD, "L" + DEFERRED + ";");
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        // fireOn
+        mv = cw.visitMethod(ACC_PUBLIC, "fireOn", "(L" + OBJECT + ";)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, actor.getInternalName());
+        for (int i = 0; i < arguments.length; i++) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, fieldName(i), arguments[i].getDescriptor());
+        }
+        mv.visitMethodInsn(INVOKEINTERFACE, actor.getInternalName(), method.getName(), Type.getMethodDescriptor(method), true);
+        if (returnsPromise(method)) {
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(Future.class));
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, DEFERRED_FIELD, "L" + DEFERRED + ";");
+            mv.visitInsn(SWAP);
+            mv.visitMethodInsn(INVOKEVIRTUAL, DEFERRED, "delegate", "(Ljava/util/concurrent/Future;)V", false);
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // metadata for toString and serialization
+        mv = cw.visitMethod(ACC_PROTECTED, "getActorType", "()Ljava/lang/Class;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(actor);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        returnConstant(cw, "getMethodName", method.getName());
+        returnConstant(cw, "getMethodDescriptor", Type.getMethodDescriptor(method));
+
+        mv = cw.visitMethod(ACC_PROTECTED, "getArguments", "()[L" + OBJECT + ";", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(arguments.length);
+        mv.visitTypeInsn(ANEWARRAY, OBJECT);
+        for (int i = 0; i < arguments.length; i++) {
+            mv.visitInsn(DUP);
+            mv.visitLdcInsn(i);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, fieldName(i), arguments[i].getDescriptor());
+            box(mv, arguments[i]);
+            mv.visitInsn(AASTORE);
+        }
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void generatePooling(ClassWriter cw, String name, Type[] arguments) {
+        cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, POOLS_FIELD, "L" + THREAD_LOCAL + ";", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(NEW, name);
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "()V", false);
+        mv.visitMethodInsn(INVOKESTATIC, RECYCLABLE_SUPERCLASS, "newPools", "(L" + RECYCLABLE_SUPERCLASS + ";)L" + THREAD_LOCAL + ";", false);
+        mv.visitFieldInsn(PUTSTATIC, name, POOLS_FIELD, "L" + THREAD_LOCAL + ";");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, RECYCLABLE_SUPERCLASS, "<init>", "()V", false);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PROTECTED, "newInstance", "()L" + RECYCLABLE_SUPERCLASS + ";", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(NEW, name);
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "()V", false);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "obtain", Type.getMethodDescriptor(Type.getObjectType(name), arguments), null, null);
+        mv.visitCode();
+        int eventSlot = 0;
+        for (Type argument : arguments) {
+            eventSlot += argument.getSize();
+        }
+        mv.visitFieldInsn(GETSTATIC, name, POOLS_FIELD, "L" + THREAD_LOCAL + ";");
+        mv.visitMethodInsn(INVOKESTATIC, RECYCLABLE_SUPERCLASS, "takeFromPool", "(L" + THREAD_LOCAL + ";)L" + RECYCLABLE_SUPERCLASS + ";", false);
+        mv.visitTypeInsn(CHECKCAST, name);
+        mv.visitVarInsn(ASTORE, eventSlot);
+        int slot = 0;
+        for (int i = 0; i < arguments.length; i++) {
+            mv.visitVarInsn(ALOAD, eventSlot);
+            mv.visitVarInsn(arguments[i].getOpcode(ILOAD), slot);
+            mv.visitFieldInsn(PUTFIELD, name, fieldName(i), arguments[i].getDescriptor());
+            slot += arguments[i].getSize();
+        }
+        mv.visitVarInsn(ALOAD, eventSlot);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PROTECTED, "clearArguments", "()V", null, null);
+        mv.visitCode();
+        for (int i = 0; i < arguments.length; i++) {
+            int sort = arguments[i].getSort();
+            if (sort == Type.OBJECT || sort == Type.ARRAY) {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitInsn(ACONST_NULL);
+                mv.visitFieldInsn(PUTFIELD, name, fieldName(i), arguments[i].getDescriptor());
+            }
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void loadArguments(MethodVisitor mv, Type[] arguments, int firstSlot) {
+        int slot = firstSlot;
+        for (Type argument : arguments) {
+            mv.visitVarInsn(argument.getOpcode(ILOAD), slot);
+            slot += argument.getSize();
+        }
+    }
+
+    private static void returnConstant(ClassWriter cw, String methodName, String value) {
+        MethodVisitor mv = cw.visitMethod(ACC_PROTECTED, methodName, "()Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(value);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void box(MethodVisitor mv, Type type) {
+        Class<?> boxed;
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                boxed = Boolean.class;
+                break;
+            case Type.CHAR:
+                boxed = Character.class;
+                break;
+            case Type.BYTE:
+                boxed = Byte.class;
+                break;
+            case Type.SHORT:
+                boxed = Short.class;
+                break;
+            case Type.INT:
+                boxed = Integer.class;
+                break;
+            case Type.FLOAT:
+                boxed = Float.class;
+                break;
+            case Type.LONG:
+                boxed = Long.class;
+                break;
+            case Type.DOUBLE:
+                boxed = Double.class;
+                break;
+            default:
+                return;
+        }
+        String owner = Type.getInternalName(boxed);
+        mv.visitMethodInsn(INVOKESTATIC, owner, "valueOf", "(" + type.getDescriptor() + ")L" + owner + ";", false);
+    }
+
+    private static boolean isRecyclable(Method method, boolean recycleEvents) {
+        // the promise of a recycled event could still be used after the event has been recycled
+        return recycleEvents && !returnsPromise(method);
+    }
+
+    private static boolean returnsPromise(Method method) {
+        return !method.getReturnType().equals(Void.TYPE);
+    }
+
+    private static String eventConstructorDescriptor(Method method) {
+        Type[] arguments = Type.getArgumentTypes(method);
+        if (returnsPromise(method)) {
+            arguments = Arrays.copyOf(arguments, arguments.length + 1);
+            arguments[arguments.length - 1] = Type.getType(Promise.Deferred.class);
+        }
+        return Type.getMethodDescriptor(Type.VOID_TYPE, arguments);
+    }
+
+    private static String fieldName(int index) {
+        return "arg" + index;
+    }
+
+    private static String internalName(String className) {
+        return className.replace('.', '/');
+    }
+}
@@ -0,0 +1,51 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Recycled events of one event class, owned by one sending thread. Only the owner thread takes events from the pool,
+ * but the actor threads which processed them may return them at any time. The returned events are pushed to a
+ * lock-free stack, which the owner takes over all at once when its private free list runs out, so that neither side
+ * allocates anything or waits for the other.
+ * <p>
+ * The pool grows to the number of messages that the owner thread has had in flight at the same time.
+ */
+@ThreadSafe
+final class EventPool {
+
+    private final RecyclableBytecodeEvent<?> prototype;
+    private final AtomicReference<RecyclableBytecodeEvent<?>> returned = new AtomicReference<>();
+    private RecyclableBytecodeEvent<?> free; // accessed only by the owner thread
+
+    public EventPool(RecyclableBytecodeEvent<?> prototype) {
+        this.prototype = prototype;
+    }
+
+    public RecyclableBytecodeEvent<?> take() {
+        RecyclableBytecodeEvent<?> event = free;
+        if (event == null) {
+            event = returned.getAndSet(null);
+        }
+        if (event == null) {
+            event = prototype.newInstance();
+            event.pool = this;
+            return event;
+        }
+        free = event.nextFree;
+        event.nextFree = null;
+        return event;
+    }
+
+    public void giveBack(RecyclableBytecodeEvent<?> event) {
+        RecyclableBytecodeEvent<?> head;
+        do {
+            head = returned.get();
+            event.nextFree = head;
+        } while (!returned.compareAndSet(head, event));
+    }
+}
@@ -0,0 +1,52 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Defines the classes generated for one actor interface. The generated classes see the actor interface and its
+ * parameter types as they are seen by the actor interface's class loader, and everything else as it is seen by Jumi
+ * Actors' class loader, so they work even when the two class loaders don't see each other.
+ */
+@ThreadSafe
+class GeneratedClassLoader extends ClassLoader {
+
+    private final Map<String, Class<?>> actorTypes = new HashMap<>();
+
+    public GeneratedClassLoader(Class<?> actorType) {
+        super(GeneratedClassLoader.class.getClassLoader());
+        addActorType(actorType);
+        for (Method method : actorType.getMethods()) {
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                addActorType(parameterType);
+            }
+        }
+    }
+
+    private void addActorType(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (!type.isPrimitive()) {
+            actorTypes.put(type.getName(), type);
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> type = actorTypes.get(name);
+        if (type != null) {
+            return type;
+        }
+        return super.loadClass(name, resolve);
+    }
+
+    public Class<?> defineClass(String name, byte[] bytecode) {
+        return defineClass(name, bytecode, 0, bytecode.length);
+    }
+}
@@ -0,0 +1,52 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.eventizers.RecyclableEvent;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Superclass of the event classes generated by {@link BytecodeEventizer} when recycling is enabled. Not to be used
+ * directly.
+ * <p>
+ * The events are taken from a per-thread pool instead of creating new instances, and {@link #recycle()} gives them
+ * back to the pool of the thread which sent them.
+ */
+@NotThreadSafe
+public abstract class RecyclableBytecodeEvent<T> extends BytecodeEvent<T> implements RecyclableEvent<T> {
+
+    transient EventPool pool;
+    transient RecyclableBytecodeEvent<?> nextFree;
+
+    protected static ThreadLocal<?> newPools(final RecyclableBytecodeEvent<?> prototype) {
+        return new ThreadLocal<EventPool>() {
+            @Override
+            protected EventPool initialValue() {
+                return new EventPool(prototype);
+            }
+        };
+    }
+
+    protected static RecyclableBytecodeEvent<?> takeFromPool(ThreadLocal<?> pools) {
+        return ((EventPool) pools.get()).take();
+    }
+
+    /**
+     * Creates an empty event of the same class, to be filled by the generated code when it's taken from the pool.
+     */
+    protected abstract RecyclableBytecodeEvent<T> newInstance();
+
+    /**
+     * Clears the references to the arguments, so that a pooled event will not keep them alive.
+     */
+    protected abstract void clearArguments();
+
+    @Override
+    public void recycle() {
+        clearArguments();
+        pool.giveBack(this);
+    }
+}
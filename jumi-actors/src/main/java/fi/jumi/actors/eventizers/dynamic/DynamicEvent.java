@@ -7,25 +7,38 @@ package fi.jumi.actors.eventizers.dynamic;
 import com.google.common.base.Throwables;
 import fi.jumi.actors.Promise;
 import fi.jumi.actors.eventizers.*;
+import fi.jumi.actors.queue.MessageSender;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.*;
 import java.lang.reflect.Method;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 @ThreadSafe
-public class DynamicEvent<T> implements Event<T>, Serializable {
+public class DynamicEvent<T> implements AddressableEvent<T>, FormattableEvent<T>, Serializable {
 
-    private transient Method method;
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private transient DynamicMethod method;
     private final Object[] args;
     private final transient Promise.Deferred<T> deferred;
+    private transient volatile MessageSender<Event<T>> recipient;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DynamicEvent, MessageSender> RECIPIENT =
+            AtomicReferenceFieldUpdater.newUpdater(DynamicEvent.class, MessageSender.class, "recipient");
 
     public DynamicEvent(Method method, Object[] args) {
         this(method, args, null);
     }
 
     public DynamicEvent(Method method, Object[] args, @Nullable Promise.Deferred<T> deferred) {
+        this(new DynamicMethod(method), args, deferred);
+    }
+
+    DynamicEvent(DynamicMethod method, Object[] args, @Nullable Promise.Deferred<T> deferred) {
         this.method = method;
         this.args = args;
         this.deferred = deferred;
@@ -44,11 +57,27 @@ public class DynamicEvent<T> implements Event<T>, Serializable {
         }
     }
 
+    public Method getMethod() {
+        return method.method;
+    }
+
+    @Override
+    public boolean trySetRecipient(MessageSender<Event<T>> recipient) {
+        return RECIPIENT.compareAndSet(this, null, recipient);
+    }
+
+    @Override
+    public void run() {
+        MessageSender<Event<T>> recipient = this.recipient;
+        this.recipient = null;
+        recipient.send(this);
+    }
+
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
-        out.writeObject(method.getName());
-        out.writeObject(method.getDeclaringClass());
-        out.writeObject(method.getParameterTypes());
+        out.writeObject(method.method.getName());
+        out.writeObject(method.method.getDeclaringClass());
+        out.writeObject(method.method.getParameterTypes());
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
@@ -57,20 +86,25 @@ public class DynamicEvent<T> implements Event<T>, Serializable {
         Class<?> declaringClass = (Class<?>) in.readObject();
         Class<?>[] parameterTypes = (Class<?>[]) in.readObject();
         try {
-            method = declaringClass.getMethod(name, parameterTypes);
+            method = new DynamicMethod(declaringClass.getMethod(name, parameterTypes));
         } catch (NoSuchMethodException e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public void formatTo(StringBuilder out) {
+        EventToString.formatTo(out, method.actorName, method.method.getName(), nonNull(args));
+    }
+
     @Override
     public String toString() {
-        return EventToString.format(method.getDeclaringClass().getSimpleName(), method.getName(), nonNull(args));
+        return EventToString.format(method.actorName, method.method.getName(), nonNull(args));
     }
 
     private static Object[] nonNull(@Nullable Object[] args) {
         if (args == null) {
-            return new Object[0];
+            return NO_ARGS;
         }
         return args;
     }
@@ -11,12 +11,18 @@ import javax.annotation.concurrent.Immutable;
 import java.lang.reflect.Proxy;
 
 /**
- * Supports any actor interface using reflection.
+ * Supports any actor interface using reflection. The reflection metadata of each method is looked up only once and
+ * shared by all frontends created by this eventizer.
+ * <p>
+ * The {@link Proxy} boxes primitive arguments and allocates an array for the arguments on every method call. To avoid
+ * that, use {@link fi.jumi.actors.eventizers.bytecode.BytecodeEventizer} whose events store the arguments in typed
+ * fields.
  */
 @Immutable
 public class DynamicEventizer<T> implements Eventizer<T> {
 
     private final Class<T> type;
+    private final DynamicMethodCache methods = new DynamicMethodCache();
 
     public DynamicEventizer(Class<T> type) {
         Eventizers.validateActorInterface(type);
@@ -33,7 +39,7 @@ public class DynamicEventizer<T> implements Eventizer<T> {
         return type.cast(Proxy.newProxyInstance(
                 type.getClassLoader(),
                 new Class<?>[]{type},
-                new DynamicListenerToEvent<>(target))
+                new DynamicListenerToEvent<>(target, methods))
         );
     }
 
@@ -15,22 +15,29 @@ import java.lang.reflect.*;
 public class DynamicListenerToEvent<T> implements InvocationHandler {
 
     private final MessageSender<Event<T>> target;
+    private final DynamicMethodCache methods;
 
     public DynamicListenerToEvent(MessageSender<Event<T>> target) {
+        this(target, new DynamicMethodCache());
+    }
+
+    DynamicListenerToEvent(MessageSender<Event<T>> target, DynamicMethodCache methods) {
         this.target = target;
+        this.methods = methods;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        if (method.getDeclaringClass().equals(Object.class)) {
+        DynamicMethod actorMethod = methods.get(method);
+        if (actorMethod.isObjectMethod) {
             return method.invoke(this, args);
         }
-        if (method.getReturnType().isAssignableFrom(Promise.class)) {
+        if (actorMethod.returnsPromise) {
             Promise.Deferred<T> deferred = Promise.defer();
-            target.send(new DynamicEvent<>(method, args, deferred));
+            target.send(new DynamicEvent<>(actorMethod, args, deferred));
             return deferred.promise();
         } else {
-            target.send(new DynamicEvent<>(method, args));
+            target.send(new DynamicEvent<>(actorMethod, args, null));
             return null;
         }
     }
@@ -0,0 +1,44 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.dynamic;
+
+import fi.jumi.actors.Promise;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.lang.reflect.*;
+
+/**
+ * What {@link DynamicListenerToEvent} and {@link DynamicEvent} need to know about an actor method. Calculated once per
+ * method instead of on every message.
+ */
+@Immutable
+final class DynamicMethod {
+
+    final Method method;
+    final String actorName;
+    final boolean isObjectMethod;
+    final boolean returnsPromise;
+
+    DynamicMethod(Method method) {
+        this.method = method;
+        this.actorName = method.getDeclaringClass().getSimpleName();
+        this.isObjectMethod = method.getDeclaringClass().equals(Object.class);
+        this.returnsPromise = method.getReturnType().isAssignableFrom(Promise.class);
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            try {
+                // Reflection does slow access checks on every call to members of non-public classes
+                method.setAccessible(true);
+            } catch (RuntimeException e) {
+                // not allowed by the security manager or module system; the access checks will be done on every call
+            }
+        }
+    }
+
+    @Nullable
+    Object invoke(Object target, @Nullable Object[] args) throws InvocationTargetException, IllegalAccessException {
+        return method.invoke(target, args);
+    }
+}
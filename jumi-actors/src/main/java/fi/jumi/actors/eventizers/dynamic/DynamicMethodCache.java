@@ -0,0 +1,40 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.dynamic;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+
+/**
+ * Maps the {@link Method} instances of a proxy class to {@link DynamicMethod}s. A proxy class passes the same
+ * {@code Method} instances on every call, so they can be compared by identity, which is much faster than
+ * {@link Method#equals}. The map is copied on write, because it's read on every message but written only once per
+ * method.
+ */
+@ThreadSafe
+class DynamicMethodCache {
+
+    private volatile IdentityHashMap<Method, DynamicMethod> methods = new IdentityHashMap<>();
+
+    public DynamicMethod get(Method method) {
+        DynamicMethod dynamicMethod = methods.get(method);
+        if (dynamicMethod == null) {
+            dynamicMethod = add(method);
+        }
+        return dynamicMethod;
+    }
+
+    private synchronized DynamicMethod add(Method method) {
+        DynamicMethod dynamicMethod = methods.get(method);
+        if (dynamicMethod == null) {
+            dynamicMethod = new DynamicMethod(method);
+            IdentityHashMap<Method, DynamicMethod> copy = new IdentityHashMap<>(methods);
+            copy.put(method, dynamicMethod);
+            methods = copy;
+        }
+        return dynamicMethod;
+    }
+}
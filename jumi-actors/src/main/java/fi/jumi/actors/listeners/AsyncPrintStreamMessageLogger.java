@@ -0,0 +1,223 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import fi.jumi.actors.queue.UnboundedManyToOneMessageQueue;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.*;
+import java.io.*;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static fi.jumi.actors.listeners.PrintStreamMessageLogger.*;
+
+/**
+ * Prints all messages that actors send and receive, like {@link PrintStreamMessageLogger}, but without making the
+ * actor threads wait for the {@link PrintStream}. Meant for debugging concurrency problems whose timing would change
+ * if the actors had to format and print every message themselves.
+ * <p>
+ * The actor threads only convert the actor and the message to strings and pass them to a background thread, which
+ * formats and prints the log lines. Converting them in the actor thread keeps the actors confined to their threads
+ * and makes the log show the state of a message when it was sent, even if it is changed or
+ * {@linkplain fi.jumi.actors.eventizers.RecyclableEvent recycled} later.
+ * <p>
+ * At most {@code capacity} messages may be waiting to be printed. When the background thread does not keep up,
+ * further messages are dropped instead of slowing down the actors, and the number of dropped messages is printed
+ * once there is room again. The background thread is started when the first message is logged. Call
+ * {@link #close()} to print all the remaining messages and stop the background thread.
+ */
+@ThreadSafe
+public class AsyncPrintStreamMessageLogger implements MessageListener, Closeable {
+
+    private static final LogRecord END_OF_LOG = new LogRecord(0, "", null, "", "");
+
+    private final PrintStream out;
+    private final int capacity;
+    private final ThreadLocal<String> currentActor = new ThreadLocal<>();
+    private final long startTime;
+
+    private final UnboundedManyToOneMessageQueue<LogRecord> records = new UnboundedManyToOneMessageQueue<>();
+    private final AtomicInteger waitingRecords = new AtomicInteger();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread writer;
+
+    // accessed only by the writer
+    private long reportedDroppedMessages = 0;
+    private final StringBuilder line = new StringBuilder();
+
+    public AsyncPrintStreamMessageLogger(PrintStream out) {
+        this(out, 8192, runnable -> {
+            Thread thread = new Thread(runnable, "jumi-actors-message-logger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param capacity      how many messages may be waiting to be printed before further messages are dropped
+     * @param threadFactory creates the background thread which prints the messages
+     */
+    public AsyncPrintStreamMessageLogger(PrintStream out, int capacity, ThreadFactory threadFactory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, but was " + capacity);
+        }
+        this.out = out;
+        this.capacity = capacity;
+        this.startTime = nanoTime();
+        this.writer = threadFactory.newThread(this::writeRecords);
+    }
+
+    @Override
+    public void onMessageSent(Object message) {
+        logMessage(OUTGOING_MESSAGE, message);
+    }
+
+    @Override
+    public void onProcessingStarted(Object actor, Object message) {
+        currentActor.set(actor.toString());
+        logMessage(INCOMING_MESSAGE, message);
+    }
+
+    private void logMessage(String messageDirection, Object message) {
+        // Counted before checking whether the logger is closed, so that close() knows to wait for this message.
+        // Counting the messages which are then not logged makes it only wait a moment longer.
+        if (waitingRecords.incrementAndGet() > capacity) {
+            waitingRecords.decrementAndGet();
+            if (!closed.get()) {
+                droppedMessages.incrementAndGet();
+            }
+            return;
+        }
+        if (closed.get()) {
+            waitingRecords.decrementAndGet();
+            return;
+        }
+        startWriter();
+        // the thread name must be read now, because actor threads rename their thread while processing messages
+        records.send(new LogRecord(nanoTime(), Thread.currentThread().getName(), currentActor.get(),
+                messageDirection, message));
+    }
+
+    private void startWriter() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            writer.start();
+        }
+    }
+
+    protected long nanoTime() { // protected to allow overriding in tests
+        return System.nanoTime();
+    }
+
+    @Override
+    public void onProcessingFinished() {
+        currentActor.remove();
+    }
+
+    @Override
+    public Executor getListenedExecutor(Executor realExecutor) {
+        return new ListenedExecutor(realExecutor, this);
+    }
+
+    /**
+     * Returns how many messages have been dropped, in total, because too many messages were waiting to be printed.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Waits for the background thread to print all the messages which were logged before calling this method, also
+     * those which other threads were logging while this method was called, and stops the background thread. The
+     * messages which are logged after closing are ignored.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        startWriter();
+        records.send(END_OF_LOG);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeRecords() {
+        try {
+            LogRecord record;
+            while ((record = records.take()) != END_OF_LOG) {
+                writeRecord(record);
+            }
+            // the messages which were being logged while closing may come after the end of log
+            while (waitingRecords.get() > 0) {
+                record = records.poll();
+                if (record == null) {
+                    Thread.yield();
+                } else {
+                    writeRecord(record);
+                }
+            }
+            reportDroppedMessages();
+        } catch (InterruptedException e) {
+            // stop writing; the remaining messages are lost
+        } finally {
+            out.flush();
+        }
+    }
+
+    private void writeRecord(LogRecord record) {
+        waitingRecords.decrementAndGet();
+        reportDroppedMessages();
+        line.setLength(0);
+        record.formatTo(line, startTime);
+        out.println(line);
+    }
+
+    private void reportDroppedMessages() {
+        long dropped = droppedMessages.get();
+        if (dropped > reportedDroppedMessages) {
+            out.println(String.format(Locale.ENGLISH, "(%d messages dropped, the logger was not keeping up)",
+                    dropped - reportedDroppedMessages));
+            reportedDroppedMessages = dropped;
+        }
+    }
+
+
+    @Immutable
+    private static class LogRecord {
+        private final long nanoTime;
+        private final String threadName;
+        private final String currentActor;
+        private final String messageDirection;
+        private final String message;
+        private final int messageId;
+
+        LogRecord(long nanoTime, String threadName, @Nullable String currentActor, String messageDirection, Object message) {
+            this.nanoTime = nanoTime;
+            this.threadName = threadName;
+            this.currentActor = currentActor;
+            this.messageDirection = messageDirection;
+            this.messageId = System.identityHashCode(message);
+            // the message may be changed or recycled after this, and only its sender may access it
+            this.message = message.toString();
+        }
+
+        void formatTo(StringBuilder line, long startTime) {
+            formatLine(line, nanoTime - startTime, threadName, currentActor, messageDirection, messageId, message);
+        }
+    }
+}
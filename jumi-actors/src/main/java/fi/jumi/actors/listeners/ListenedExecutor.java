@@ -0,0 +1,50 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Executor;
+
+/**
+ * Notifies a {@link MessageListener} about the commands which are submitted to an {@link Executor}, as if the command
+ * were a message and the executor were the actor which processes it.
+ */
+@ThreadSafe
+public class ListenedExecutor implements Executor {
+
+    private final Executor realExecutor;
+    private final MessageListener listener;
+
+    public ListenedExecutor(Executor realExecutor, MessageListener listener) {
+        this.realExecutor = realExecutor;
+        this.listener = listener;
+    }
+
+    @Override
+    public void execute(Runnable realCommand) {
+        listener.onMessageSent(realCommand);
+        realExecutor.execute(new ListenedRunnable(realCommand));
+    }
+
+
+    @ThreadSafe
+    private class ListenedRunnable implements Runnable {
+        private final Runnable realCommand;
+
+        public ListenedRunnable(Runnable realCommand) {
+            this.realCommand = realCommand;
+        }
+
+        @Override
+        public void run() {
+            listener.onProcessingStarted(realExecutor, realCommand);
+            try {
+                realCommand.run();
+            } finally {
+                listener.onProcessingFinished();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import javax.annotation.concurrent.Immutable;
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+import static fi.jumi.actors.listeners.MappedTraceMessageListener.*;
+
+/**
+ * Prints the events recorded by {@link MappedTraceMessageListener} in the same format as
+ * {@link PrintStreamMessageLogger}, sorted by time.
+ * <p>
+ * Usage: {@code java fi.jumi.actors.listeners.MappedTraceDecoder TRACE_FILE}
+ */
+@Immutable
+public class MappedTraceDecoder {
+
+    private MappedTraceDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java " + MappedTraceDecoder.class.getName() + " TRACE_FILE");
+            System.exit(1);
+        }
+        decode(new File(args[0]), System.out);
+    }
+
+    public static void decode(File traceFile, PrintStream out) throws IOException {
+        Map<Integer, String> strings = readStrings(MappedTraceMessageListener.stringsFile(traceFile));
+        ByteBuffer records = ByteBuffer.wrap(readFully(traceFile));
+        if (records.capacity() < HEADER_SIZE || records.getInt(0) != MAGIC) {
+            throw new IOException("not a trace file: " + traceFile);
+        }
+        if (records.getInt(4) != VERSION) {
+            throw new IOException("unsupported trace file version " + records.getInt(4) + ": " + traceFile);
+        }
+
+        List<Integer> positions = new ArrayList<>();
+        for (int position = HEADER_SIZE; position + RECORD_SIZE <= records.capacity(); position += RECORD_SIZE) {
+            int type = records.getInt(position + TYPE_OFFSET);
+            if (type == SENT || type == STARTED) {
+                positions.add(position);
+            }
+        }
+        Collections.sort(positions, (a, b) -> {
+            long t1 = records.getLong(a + TIMESTAMP_OFFSET);
+            long t2 = records.getLong(b + TIMESTAMP_OFFSET);
+            return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+        });
+
+        for (int position : positions) {
+            String direction = records.getInt(position + TYPE_OFFSET) == SENT ? "->" : "<-";
+            int actorTypeId = records.getInt(position + ACTOR_TYPE_OFFSET);
+            String actor = actorTypeId == 0
+                    ? "<external>"
+                    : strings.get(actorTypeId) + "@" + Integer.toHexString(records.getInt(position + ACTOR_ID_OFFSET));
+            out.println(String.format(Locale.ENGLISH, "[%11.6f] [%s] %s %s 0x%08x %s",
+                    records.getLong(position + TIMESTAMP_OFFSET) / 1000000000.0,
+                    strings.get(records.getInt(position + THREAD_OFFSET)),
+                    actor,
+                    direction,
+                    records.getInt(position + MESSAGE_ID_OFFSET),
+                    strings.get(records.getInt(position + MESSAGE_TYPE_OFFSET))));
+        }
+    }
+
+    private static Map<Integer, String> readStrings(File file) throws IOException {
+        Map<Integer, String> strings = new HashMap<>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            while (true) {
+                int id;
+                try {
+                    id = in.readInt();
+                } catch (EOFException e) {
+                    return strings;
+                }
+                strings.put(id, in.readUTF());
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+}
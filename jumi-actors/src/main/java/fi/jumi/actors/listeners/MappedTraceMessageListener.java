@@ -0,0 +1,259 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import javax.annotation.concurrent.*;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Records all messages that actors send and receive into a memory-mapped file, which can be read with
+ * {@link MappedTraceDecoder}. Meant for tracing messages in production, where the formatting and locking done by
+ * {@link PrintStreamMessageLogger} would be too slow.
+ * <p>
+ * Every event is written as a fixed-size binary record. Each thread claims a chunk of records at a time and fills it
+ * without coordinating with other threads. When the file is full, the oldest chunks are overwritten, so the file
+ * contains the latest events. A chunk which a live thread has not yet filled is never given to another thread, so
+ * the capacity should be at least {@value #RECORDS_PER_CHUNK} records per thread; if all chunks are in use by
+ * other threads, the event is not recorded and it's counted in {@link #getDroppedEvents()}. Names of threads, actor
+ * classes and message types are written once to a separate {@code .strings} file next to the trace file, and the
+ * records refer to them by number.
+ * <p>
+ * Because nothing is formatted when the events happen, the decoded trace shows messages as their type, i.e. the actor
+ * method or the class of the event, instead of their {@link Object#toString()}, and actors as their class name and
+ * identity hash code.
+ */
+@ThreadSafe
+public class MappedTraceMessageListener implements MessageListener, Closeable {
+
+    static final int MAGIC = 0x4a545243; // "JTRC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 32;
+    static final int RECORDS_PER_CHUNK = 16;
+    static final int CHUNK_SIZE = RECORD_SIZE * RECORDS_PER_CHUNK;
+
+    static final int SENT = 1;
+    static final int STARTED = 2;
+    static final int FINISHED = 3;
+
+    // record layout
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int TYPE_OFFSET = 8;
+    static final int THREAD_OFFSET = 12;
+    static final int ACTOR_TYPE_OFFSET = 16;
+    static final int ACTOR_ID_OFFSET = 20;
+    static final int MESSAGE_TYPE_OFFSET = 24;
+    static final int MESSAGE_ID_OFFSET = 28;
+
+    private final File traceFile;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer records; // only absolute puts, so that threads can write to it concurrently
+    private final int chunks;
+    private final AtomicLong nextChunk = new AtomicLong();
+    private final AtomicReferenceArray<Thread> chunkOwners;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final long startTime;
+    private volatile boolean closed = false;
+
+    private final ConcurrentMap<Object, Integer> stringIds = new ConcurrentHashMap<>();
+    @GuardedBy("this")
+    private final DataOutputStream strings;
+    @GuardedBy("this")
+    private int nextStringId = 1;
+
+    private final ThreadLocal<ThreadState> threadStates = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    /**
+     * @param traceFile where to write the records; the names are written to a file with the same name and
+     *                  {@code .strings} appended
+     * @param capacity  how many of the latest events to keep
+     */
+    public MappedTraceMessageListener(File traceFile, int capacity) throws IOException {
+        if (capacity < RECORDS_PER_CHUNK) {
+            throw new IllegalArgumentException("capacity must be at least " + RECORDS_PER_CHUNK + ", but was " + capacity);
+        }
+        this.traceFile = traceFile;
+        this.chunks = capacity / RECORDS_PER_CHUNK;
+        this.chunkOwners = new AtomicReferenceArray<>(chunks);
+        long size = HEADER_SIZE + (long) chunks * CHUNK_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity is too large, but was " + capacity);
+        }
+        this.file = new RandomAccessFile(traceFile, "rw");
+        file.setLength(0);
+        file.setLength(size);
+        this.records = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.strings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stringsFile(traceFile))));
+        this.startTime = nanoTime();
+
+        records.putInt(0, MAGIC);
+        records.putInt(4, VERSION);
+        records.putInt(8, RECORD_SIZE);
+        records.putInt(12, RECORDS_PER_CHUNK);
+        records.putInt(16, chunks);
+    }
+
+    static File stringsFile(File traceFile) {
+        return new File(traceFile.getPath() + ".strings");
+    }
+
+    protected long nanoTime() { // protected to allow overriding in tests
+        return System.nanoTime();
+    }
+
+    @Override
+    public void onMessageSent(Object message) {
+        if (closed) {
+            return;
+        }
+        ThreadState state = threadStates.get();
+        record(state, SENT, idOf(MessageTypes.typeOf(message)), System.identityHashCode(message));
+    }
+
+    @Override
+    public void onProcessingStarted(Object actor, Object message) {
+        if (closed) {
+            return;
+        }
+        ThreadState state = threadStates.get();
+        // named actor threads rename the thread for the time they process messages
+        String threadName = Thread.currentThread().getName();
+        if (!threadName.equals(state.threadName)) {
+            state.threadName = threadName;
+            state.threadNameId = idOf(threadName);
+        }
+        state.actorTypeId = idOf(actor.getClass());
+        state.actorId = System.identityHashCode(actor);
+        record(state, STARTED, idOf(MessageTypes.typeOf(message)), System.identityHashCode(message));
+    }
+
+    @Override
+    public void onProcessingFinished() {
+        if (closed) {
+            return;
+        }
+        ThreadState state = threadStates.get();
+        record(state, FINISHED, 0, 0);
+        state.actorTypeId = 0;
+        state.actorId = 0;
+    }
+
+    @Override
+    public Executor getListenedExecutor(Executor realExecutor) {
+        return new ListenedExecutor(realExecutor, this);
+    }
+
+    private void record(ThreadState state, int type, int messageTypeId, int messageId) {
+        if (state.remaining == 0 && !claimChunk(state)) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        int record = state.position;
+        records.putLong(record + TIMESTAMP_OFFSET, nanoTime() - startTime);
+        records.putInt(record + THREAD_OFFSET, state.threadNameId);
+        records.putInt(record + ACTOR_TYPE_OFFSET, state.actorTypeId);
+        records.putInt(record + ACTOR_ID_OFFSET, state.actorId);
+        records.putInt(record + MESSAGE_TYPE_OFFSET, messageTypeId);
+        records.putInt(record + MESSAGE_ID_OFFSET, messageId);
+        records.putInt(record + TYPE_OFFSET, type); // last, so that incomplete records can be recognized
+        state.position += RECORD_SIZE;
+        state.remaining--;
+    }
+
+    private boolean claimChunk(ThreadState state) {
+        Thread current = Thread.currentThread();
+        if (state.chunk >= 0) {
+            chunkOwners.set(state.chunk, null); // the chunk is full, so other threads may overwrite it
+            state.chunk = -1;
+        }
+        for (int attempt = 0; attempt < chunks; attempt++) {
+            int chunk = (int) (nextChunk.getAndIncrement() % chunks);
+            Thread owner = chunkOwners.get(chunk);
+            // a thread which has died cannot write to its chunk anymore
+            if ((owner == null || !owner.isAlive()) && chunkOwners.compareAndSet(chunk, owner, current)) {
+                int position = HEADER_SIZE + chunk * CHUNK_SIZE;
+                // forget the events which were recorded in this chunk before the file wrapped around
+                for (int i = 0; i < RECORDS_PER_CHUNK; i++) {
+                    records.putInt(position + i * RECORD_SIZE + TYPE_OFFSET, 0);
+                }
+                state.chunk = chunk;
+                state.position = position;
+                state.remaining = RECORDS_PER_CHUNK;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns how many events were not recorded, because all the chunks were being filled by other threads.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private int idOf(Object key) {
+        Integer id = stringIds.get(key);
+        if (id == null) {
+            id = newId(key);
+        }
+        return id;
+    }
+
+    private synchronized int newId(Object key) {
+        Integer id = stringIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (closed) {
+            return 0; // the event will not be recorded anyways
+        }
+        id = nextStringId++;
+        try {
+            strings.writeInt(id);
+            strings.writeUTF(MessageTypes.describe(key));
+            strings.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("failed to write " + stringsFile(traceFile), e);
+        }
+        stringIds.put(key, id);
+        return id;
+    }
+
+    /**
+     * Writes the recorded events to the disk and releases the file. Events which happen after closing are not recorded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        records.force();
+        strings.close();
+        file.close();
+    }
+
+
+    @NotThreadSafe
+    private class ThreadState {
+        String threadName = Thread.currentThread().getName();
+        int threadNameId = idOf(threadName);
+        int actorTypeId = 0;
+        int actorId = 0;
+        int chunk = -1;
+        int position;
+        int remaining = 0;
+    }
+}
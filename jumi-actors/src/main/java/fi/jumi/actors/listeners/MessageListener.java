@@ -9,9 +9,15 @@ import java.util.concurrent.Executor;
 /**
  * Gets notified about all messages that actors send and receive. Can also listen for all commands submitted to an
  * {@link Executor} by wrapping it in {@link #getListenedExecutor}.
+ * <p>
+ * The messages may be {@link fi.jumi.actors.eventizers.RecyclableEvent}s, which the actors container reuses for
+ * other messages after they have been processed. A listener must not keep references to the messages after its
+ * callback returns, nor compare them by identity to messages of earlier callbacks; it should copy what it needs, for
+ * example using {@link Object#toString()} or {@link MessageTypes#typeOf(Object)}.
  *
  * @see NullMessageListener
  * @see PrintStreamMessageLogger
+ * @see TracingMessageListener
  */
 public interface MessageListener {
 
@@ -0,0 +1,44 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import fi.jumi.actors.eventizers.dynamic.DynamicEvent;
+import fi.jumi.actors.queue.Envelope;
+
+import javax.annotation.concurrent.Immutable;
+import java.lang.reflect.Method;
+
+/**
+ * Tells apart the types of messages without formatting the messages. The type of a message is its actor method when
+ * the event is a {@link DynamicEvent}, and otherwise the class of the event, which for generated eventizers is
+ * different for every actor method. Messages in an {@link Envelope} are classified by the message inside it.
+ */
+@Immutable
+public class MessageTypes {
+
+    private MessageTypes() {
+    }
+
+    public static Object typeOf(Object message) {
+        while (message instanceof Envelope) {
+            message = ((Envelope) message).getMessage();
+        }
+        if (message instanceof DynamicEvent) {
+            return ((DynamicEvent<?>) message).getMethod();
+        }
+        return message.getClass();
+    }
+
+    public static String describe(Object messageType) {
+        if (messageType instanceof Method) {
+            Method method = (Method) messageType;
+            return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+        if (messageType instanceof Class) {
+            return ((Class<?>) messageType).getName();
+        }
+        return messageType.toString();
+    }
+}
@@ -0,0 +1,95 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Locale;
+
+/**
+ * Statistics of one type of message processed by one class of actors, as sampled by {@link SamplingMessageListener}.
+ * All durations are in nanoseconds.
+ */
+@Immutable
+public class MethodSample {
+
+    private final String actorClass;
+    private final String messageType;
+    private final long sampleCount;
+    private final long estimatedCount;
+    private final double meanProcessingTime;
+    private final long p99ProcessingTime;
+    private final double meanQueueingDelay;
+    private final long p99QueueingDelay;
+
+    public MethodSample(String actorClass, String messageType, long sampleCount, long estimatedCount,
+                        double meanProcessingTime, long p99ProcessingTime,
+                        double meanQueueingDelay, long p99QueueingDelay) {
+        this.actorClass = actorClass;
+        this.messageType = messageType;
+        this.sampleCount = sampleCount;
+        this.estimatedCount = estimatedCount;
+        this.meanProcessingTime = meanProcessingTime;
+        this.p99ProcessingTime = p99ProcessingTime;
+        this.meanQueueingDelay = meanQueueingDelay;
+        this.p99QueueingDelay = p99QueueingDelay;
+    }
+
+    public String getActorClass() {
+        return actorClass;
+    }
+
+    /**
+     * The actor method, for example {@code "Consumer.onMessage"}, or the class of the event if the method is not known.
+     */
+    public String getMessageType() {
+        return messageType;
+    }
+
+    /**
+     * How many of the messages were measured.
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * How many messages there were in total, extrapolated from the samples.
+     */
+    public long getEstimatedCount() {
+        return estimatedCount;
+    }
+
+    /**
+     * Estimate of the total time spent processing these messages.
+     */
+    public double getEstimatedTotalProcessingTime() {
+        return estimatedCount * meanProcessingTime;
+    }
+
+    public double getMeanProcessingTime() {
+        return meanProcessingTime;
+    }
+
+    public long getP99ProcessingTime() {
+        return p99ProcessingTime;
+    }
+
+    /**
+     * Mean time from sending a message to starting to process it.
+     */
+    public double getMeanQueueingDelay() {
+        return meanQueueingDelay;
+    }
+
+    public long getP99QueueingDelay() {
+        return p99QueueingDelay;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "%s %s: ~%d messages, processing mean %.0f ns p99 %d ns, queueing mean %.0f ns p99 %d ns",
+                actorClass, messageType, estimatedCount, meanProcessingTime, p99ProcessingTime, meanQueueingDelay, p99QueueingDelay);
+    }
+}
@@ -4,22 +4,34 @@
 
 package fi.jumi.actors.listeners;
 
+import fi.jumi.actors.eventizers.FormattableEvent;
+
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.PrintStream;
-import java.util.Locale;
 import java.util.concurrent.Executor;
 
 /**
  * Prints all messages that actors send and receive. Meant for debugging.
+ * <p>
+ * The messages are printed synchronously on the thread which sends or processes them, so all actor threads contend
+ * on the {@link PrintStream}. To disturb the timing of the actors less, use {@link AsyncPrintStreamMessageLogger}.
+ * To also print which message caused each message, use {@link TracingPrintStreamMessageLogger}.
  */
 @ThreadSafe
 public class PrintStreamMessageLogger implements MessageListener {
 
-    private static final String OUTGOING_MESSAGE = "->";
-    private static final String INCOMING_MESSAGE = "<-";
+    static final String OUTGOING_MESSAGE = "->";
+    static final String INCOMING_MESSAGE = "<-";
 
     private final PrintStream out;
     private final ThreadLocal<Object> currentActor = new ThreadLocal<>();
+    private final ThreadLocal<StringBuilder> lines = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder();
+        }
+    };
     private final long startTime;
 
     public PrintStreamMessageLogger(PrintStream out) {
@@ -29,37 +41,78 @@ public class PrintStreamMessageLogger implements MessageListener {
 
     @Override
     public void onMessageSent(Object message) {
-        logMessage(OUTGOING_MESSAGE, message);
+        logMessage(OUTGOING_MESSAGE, message, null);
     }
 
     @Override
     public void onProcessingStarted(Object actor, Object message) {
+        logProcessingStarted(actor, message, null);
+    }
+
+    void logProcessingStarted(Object actor, Object message, @Nullable TraceContext trace) {
         currentActor.set(actor);
-        logMessage(INCOMING_MESSAGE, message);
+        logMessage(INCOMING_MESSAGE, message, trace);
     }
 
-    private void logMessage(String messageDirection, Object message) {
+    void logMessage(String messageDirection, Object message, @Nullable TraceContext trace) {
         String threadName = Thread.currentThread().getName();
         int messageId = System.identityHashCode(message);
-        out.println(String.format(Locale.ENGLISH, "[%11.6f] [%s] %s %s 0x%08x %s",
-                secondsSinceStart(), threadName, currentActorFormatted(), messageDirection, messageId, message));
+        StringBuilder line = lines.get();
+        line.setLength(0);
+        formatLine(line, nanoTime() - startTime, threadName, currentActor.get(), messageDirection, messageId, message);
+        if (trace != null) {
+            line.append(' ').append(trace);
+        }
+        out.println(line);
     }
 
-    private double secondsSinceStart() {
-        long nanosSinceStart = nanoTime() - startTime;
-        return nanosSinceStart / 1000000000.0;
+    /**
+     * Appends a line of the form {@code [   1.234567] [thread] actor -> 0x0123abcd TheClass.theMethod("foo")}.
+     * The events are appended using {@link FormattableEvent#formatTo} when possible, so that the only garbage is the
+     * string of the whole line which is printed.
+     */
+    static void formatLine(StringBuilder line, long nanosSinceStart, String threadName, @Nullable Object currentActor,
+                           String messageDirection, int messageId, Object message) {
+        line.append('[');
+        appendSeconds(line, nanosSinceStart);
+        line.append("] [").append(threadName).append("] ");
+        if (currentActor == null) {
+            line.append("<external>");
+        } else {
+            line.append(currentActor);
+        }
+        line.append(' ').append(messageDirection).append(" 0x");
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            line.append(Character.forDigit((messageId >>> shift) & 0xf, 16));
+        }
+        line.append(' ');
+        if (message instanceof FormattableEvent) {
+            ((FormattableEvent<?>) message).formatTo(line);
+        } else {
+            line.append(message);
+        }
     }
 
-    protected long nanoTime() { // protected to allow overriding in tests
-        return System.nanoTime();
+    private static void appendSeconds(StringBuilder line, long nanos) {
+        // same as String.format("%11.6f", nanos / 1000000000.0)
+        int start = line.length();
+        if (nanos < 0) {
+            line.append('-');
+        }
+        long micros = (Math.abs(nanos) + 500) / 1000;
+        int fraction = (int) (micros % 1000000);
+        line.append(micros / 1000000).append('.');
+        for (int digit = 100000; digit > 1 && fraction < digit; digit /= 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+        while (line.length() - start < 11) {
+            line.insert(start, ' ');
+        }
     }
 
-    private String currentActorFormatted() {
-        Object currentActor = this.currentActor.get();
-        if (currentActor == null) {
-            return "<external>";
-        }
-        return currentActor.toString();
+    protected long nanoTime() { // protected to allow overriding in tests
+        return System.nanoTime();
     }
 
     @Override
@@ -69,43 +122,6 @@ public class PrintStreamMessageLogger implements MessageListener {
 
     @Override
     public Executor getListenedExecutor(Executor realExecutor) {
-        return new LoggedExecutor(realExecutor);
-    }
-
-
-    @ThreadSafe
-    private class LoggedExecutor implements Executor {
-        private final Executor realExecutor;
-
-        public LoggedExecutor(Executor realExecutor) {
-            this.realExecutor = realExecutor;
-        }
-
-        @Override
-        public void execute(Runnable realCommand) {
-            onMessageSent(realCommand);
-            realExecutor.execute(new LoggedRunnable(realExecutor, realCommand));
-        }
-    }
-
-    @ThreadSafe
-    private class LoggedRunnable implements Runnable {
-        private final Executor realExecutor;
-        private final Runnable realCommand;
-
-        public LoggedRunnable(Executor realExecutor, Runnable realCommand) {
-            this.realExecutor = realExecutor;
-            this.realCommand = realCommand;
-        }
-
-        @Override
-        public void run() {
-            onProcessingStarted(realExecutor, realCommand);
-            try {
-                realCommand.run();
-            } finally {
-                onProcessingFinished();
-            }
-        }
+        return new ListenedExecutor(realExecutor, this);
     }
 }
@@ -0,0 +1,246 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import fi.jumi.actors.Callback;
+import fi.jumi.actors.metrics.LatencyHistogram;
+
+import javax.annotation.concurrent.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Measures one in every N messages: how long they waited before being processed and how long processing them took,
+ * aggregated per actor class and message type. Meant for continuous profiling in production.
+ * <p>
+ * Each thread counts the messages it sends, so deciding whether to sample a message does not contend with other
+ * threads. The messages which are not sampled cost a thread-local counter when sent and a couple of volatile reads
+ * when processed. The statistics can be read at any time with {@link #getSnapshot()}, or published periodically with
+ * {@link #publishSnapshots}, without blocking the actor threads.
+ * <p>
+ * The sampled messages are recognized by their identity when they are processed. This works also for
+ * {@linkplain fi.jumi.actors.eventizers.RecyclableEvent recyclable events}: a message is sent only after
+ * {@link #onMessageSent} has returned and it's recycled only after {@link #onProcessingStarted} has returned, which
+ * removes its sample, so a sample never outlives the message it was taken of. The samples compare the events only by
+ * identity and never read them.
+ * <p>
+ * At most {@value #MAX_SAMPLES_IN_FLIGHT} sampled messages can be waiting to be processed at a time; when there are
+ * more, the oldest sample is dropped, so that the samples of messages which will never be processed, for example
+ * because their actor thread was stopped, do not keep out new samples.
+ */
+@ThreadSafe
+public class SamplingMessageListener implements MessageListener {
+
+    static final int MAX_SAMPLES_IN_FLIGHT = 16;
+
+    private final int sampleEvery;
+    private final AtomicReferenceArray<Sample> samplesInFlight = new AtomicReferenceArray<>(MAX_SAMPLES_IN_FLIGHT);
+    private final AtomicInteger samplesWaiting = new AtomicInteger();
+    private final AtomicInteger samplesBeingProcessed = new AtomicInteger();
+    private final ConcurrentMap<Key, MethodStatistics> statistics = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<ThreadState> threadStates = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState(sampleEvery);
+        }
+    };
+
+    /**
+     * @param sampleEvery measure one in this many messages
+     */
+    public SamplingMessageListener(int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("sample rate must be at least 1, but was " + sampleEvery);
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    protected long nanoTime() { // protected to allow overriding in tests
+        return System.nanoTime();
+    }
+
+    @Override
+    public void onMessageSent(Object message) {
+        ThreadState state = threadStates.get();
+        if (--state.untilNextSample > 0) {
+            return;
+        }
+        state.untilNextSample = sampleEvery;
+
+        long now = nanoTime();
+        Sample sample = new Sample(message, now);
+        for (int i = 0; i < MAX_SAMPLES_IN_FLIGHT; i++) {
+            if (samplesInFlight.get(i) == null && samplesInFlight.compareAndSet(i, null, sample)) {
+                samplesWaiting.incrementAndGet();
+                return;
+            }
+        }
+        // replace the oldest sample, which is the most likely to never be processed
+        int oldestIndex = -1;
+        Sample oldest = null;
+        for (int i = 0; i < MAX_SAMPLES_IN_FLIGHT; i++) {
+            Sample other = samplesInFlight.get(i);
+            if (other != null && (oldest == null || other.sentNanos - oldest.sentNanos < 0)) {
+                oldestIndex = i;
+                oldest = other;
+            }
+        }
+        if (oldest != null) {
+            // if the oldest sample was just processed, this sample is skipped
+            samplesInFlight.compareAndSet(oldestIndex, oldest, sample);
+        }
+    }
+
+    @Override
+    public void onProcessingStarted(Object actor, Object message) {
+        if (samplesWaiting.get() == 0) {
+            return;
+        }
+        for (int i = 0; i < MAX_SAMPLES_IN_FLIGHT; i++) {
+            Sample sample = samplesInFlight.get(i);
+            if (sample != null && sample.message == message && samplesInFlight.compareAndSet(i, sample, null)) {
+                samplesWaiting.decrementAndGet();
+                ThreadState state = threadStates.get();
+                state.current = statisticsFor(actor.getClass(), MessageTypes.typeOf(message));
+                state.sentNanos = sample.sentNanos;
+                state.startedNanos = nanoTime();
+                samplesBeingProcessed.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onProcessingFinished() {
+        if (samplesBeingProcessed.get() == 0) {
+            return;
+        }
+        ThreadState state = threadStates.get();
+        MethodStatistics current = state.current;
+        if (current != null) {
+            current.record(state.startedNanos - state.sentNanos, nanoTime() - state.startedNanos);
+            state.current = null;
+            samplesBeingProcessed.decrementAndGet();
+        }
+    }
+
+    @Override
+    public Executor getListenedExecutor(Executor realExecutor) {
+        return new ListenedExecutor(realExecutor, this);
+    }
+
+    private MethodStatistics statisticsFor(Class<?> actorClass, Object messageType) {
+        Key key = new Key(actorClass, messageType);
+        MethodStatistics stats = statistics.get(key);
+        if (stats == null) {
+            stats = new MethodStatistics(actorClass.getName(), MessageTypes.describe(messageType));
+            MethodStatistics previous = statistics.putIfAbsent(key, stats);
+            if (previous != null) {
+                stats = previous;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the statistics gathered so far, the message types which take the most processing time in total first.
+     */
+    public List<MethodSample> getSnapshot() {
+        List<MethodSample> snapshot = new ArrayList<>();
+        for (MethodStatistics stats : statistics.values()) {
+            snapshot.add(stats.snapshot(sampleEvery));
+        }
+        Collections.sort(snapshot, (a, b) -> Double.compare(b.getEstimatedTotalProcessingTime(), a.getEstimatedTotalProcessingTime()));
+        return snapshot;
+    }
+
+    /**
+     * Gives a {@linkplain #getSnapshot() snapshot} to the callback periodically. The callback is called in a thread
+     * of the scheduler, so it can for example be an actor whose messages are processed elsewhere.
+     *
+     * @return for cancelling the publishing
+     */
+    public ScheduledFuture<?> publishSnapshots(ScheduledExecutorService scheduler, long period, TimeUnit unit,
+                                               final Callback<List<MethodSample>> callback) {
+        return scheduler.scheduleAtFixedRate(() -> callback.onResult(getSnapshot()), period, period, unit);
+    }
+
+
+    @Immutable
+    private static class Sample {
+        final Object message;
+        final long sentNanos;
+
+        Sample(Object message, long sentNanos) {
+            this.message = message;
+            this.sentNanos = sentNanos;
+        }
+    }
+
+    @NotThreadSafe
+    private static class ThreadState {
+        int untilNextSample;
+        MethodStatistics current;
+        long sentNanos;
+        long startedNanos;
+
+        ThreadState(int sampleEvery) {
+            this.untilNextSample = sampleEvery;
+        }
+    }
+
+    @Immutable
+    private static class Key {
+        private final Class<?> actorClass;
+        private final Object messageType;
+
+        Key(Class<?> actorClass, Object messageType) {
+            this.actorClass = actorClass;
+            this.messageType = messageType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return actorClass.equals(that.actorClass) && messageType.equals(that.messageType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * actorClass.hashCode() + messageType.hashCode();
+        }
+    }
+
+    @ThreadSafe
+    private static class MethodStatistics {
+        private final String actorClass;
+        private final String messageType;
+        // the histograms allow only one thread at a time to record, but they can be read concurrently
+        private final LatencyHistogram queueingDelay = new LatencyHistogram();
+        private final LatencyHistogram processingTime = new LatencyHistogram();
+
+        MethodStatistics(String actorClass, String messageType) {
+            this.actorClass = actorClass;
+            this.messageType = messageType;
+        }
+
+        synchronized void record(long queueingNanos, long processingNanos) {
+            queueingDelay.record(queueingNanos);
+            processingTime.record(processingNanos);
+        }
+
+        MethodSample snapshot(int sampleEvery) {
+            long count = processingTime.getTotalCount();
+            return new MethodSample(actorClass, messageType, count, count * sampleEvery,
+                    processingTime.getMean(), processingTime.getValueAtPercentile(99),
+                    queueingDelay.getMean(), queueingDelay.getValueAtPercentile(99));
+        }
+    }
+}
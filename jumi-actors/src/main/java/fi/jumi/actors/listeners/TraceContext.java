@@ -0,0 +1,102 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Tells where a message came from, so that chains of messages can be followed across actor threads. A message which
+ * is sent while an actor is processing another message is caused by that parent message; a message which is sent
+ * from outside the actors is the root of its chain.
+ * <p>
+ * The actor which sent the message is identified by its class and identity hash code, so that the trace context can
+ * be kept and printed in any thread without touching the actor or keeping it alive.
+ *
+ * @see TracingMessageListener
+ */
+@Immutable
+public class TraceContext {
+
+    /**
+     * The value of {@link #getParentMessageId()} for messages which were not sent by an actor.
+     */
+    public static final long NO_PARENT = 0;
+
+    private final long messageId;
+    private final long parentMessageId;
+    private final long rootMessageId;
+    private final int hopCount;
+    private final Class<?> originActorClass;
+    private final int originActorId;
+
+    /**
+     * @param originActor the actor which sent the message, or {@code null}; only its identity is kept
+     */
+    public TraceContext(long messageId, long parentMessageId, long rootMessageId, int hopCount, @Nullable Object originActor) {
+        this.messageId = messageId;
+        this.parentMessageId = parentMessageId;
+        this.rootMessageId = rootMessageId;
+        this.hopCount = hopCount;
+        this.originActorClass = originActor == null ? null : originActor.getClass();
+        this.originActorId = System.identityHashCode(originActor);
+    }
+
+    /**
+     * Unique within one actors container. Unlike {@link System#identityHashCode}, never reused for another message.
+     */
+    public long getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * The message which was being processed when this message was sent, or {@link #NO_PARENT}.
+     */
+    public long getParentMessageId() {
+        return parentMessageId;
+    }
+
+    /**
+     * The message which started this chain of messages. Equals {@link #getMessageId()} for root messages.
+     */
+    public long getRootMessageId() {
+        return rootMessageId;
+    }
+
+    /**
+     * How many messages there are between this message and the root of its chain. Zero for root messages.
+     */
+    public int getHopCount() {
+        return hopCount;
+    }
+
+    /**
+     * The class of the actor which sent this message, or {@code null} if it was sent from outside the actors.
+     */
+    @Nullable
+    public Class<?> getOriginActorClass() {
+        return originActorClass;
+    }
+
+    /**
+     * The {@linkplain System#identityHashCode identity hash code} of the actor which sent this message, or zero if it
+     * was sent from outside the actors.
+     */
+    public int getOriginActorId() {
+        return originActorId;
+    }
+
+    public boolean isRoot() {
+        return parentMessageId == NO_PARENT;
+    }
+
+    @Override
+    public String toString() {
+        String origin = originActorClass == null ? "<external>"
+                : originActorClass.getName() + "@" + Integer.toHexString(originActorId);
+        return "#" + messageId + " (parent #" + parentMessageId + ", root #" + rootMessageId + ", hop " + hopCount
+                + ", from " + origin + ")";
+    }
+}
@@ -0,0 +1,22 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+/**
+ * {@link MessageListener} which also gets to know which message caused each message. When the message listener of an
+ * actors container implements this interface, the container gives every message a {@link TraceContext} and calls the
+ * methods of this interface <em>instead of</em> {@link #onMessageSent(Object)} and
+ * {@link #onProcessingStarted(Object, Object)}. Without this interface the messages are not traced, so that tracing
+ * costs nothing unless it's used.
+ * <p>
+ * The trace context of a message is the same when it's sent and when it's processed, so listeners can match them to
+ * measure, for example, how long a message waited in the mailbox and which upstream message caused it.
+ */
+public interface TracingMessageListener extends MessageListener {
+
+    void onMessageSent(Object message, TraceContext trace);
+
+    void onProcessingStarted(Object actor, Object message, TraceContext trace);
+}
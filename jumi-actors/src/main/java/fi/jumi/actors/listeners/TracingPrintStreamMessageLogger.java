@@ -0,0 +1,33 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.PrintStream;
+
+/**
+ * Prints all messages that actors send and receive, like {@link PrintStreamMessageLogger}, followed by their
+ * {@link TraceContext}, so that the chains of messages can be followed across actor threads. Meant for debugging.
+ * <p>
+ * Because this is a {@link TracingMessageListener}, the actors container gives every message a trace context, which
+ * costs an envelope per message.
+ */
+@ThreadSafe
+public class TracingPrintStreamMessageLogger extends PrintStreamMessageLogger implements TracingMessageListener {
+
+    public TracingPrintStreamMessageLogger(PrintStream out) {
+        super(out);
+    }
+
+    @Override
+    public void onMessageSent(Object message, TraceContext trace) {
+        logMessage(OUTGOING_MESSAGE, message, trace);
+    }
+
+    @Override
+    public void onProcessingStarted(Object actor, Object message, TraceContext trace) {
+        logProcessingStarted(actor, message, trace);
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.metrics;
+
+import fi.jumi.actors.listeners.MessageTypes;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of one actor thread, as measured by the mailbox from {@link MetricsMailboxFactory}. Can be read by any
+ * thread, for example by registering it as an MBean.
+ */
+@ThreadSafe
+public class ActorThreadMetrics implements ActorThreadMetricsMBean {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong messagesSent = new AtomicLong();
+    private volatile long messagesProcessed = 0;
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    private final ConcurrentMap<Object, ProcessingTime> processingTimes = new ConcurrentHashMap<>();
+    private volatile String name;
+
+    // messages per second, measured in windows of about one second
+    private long windowStart = System.nanoTime(); // accessed only by the actor thread
+    private long windowCount = 0; // accessed only by the actor thread
+    private volatile long lastWindowEnd = 0;
+    private volatile double lastWindowRate = 0;
+
+    void onMessageSent() {
+        messagesSent.incrementAndGet();
+    }
+
+    // called by the actor thread
+    void onMessageProcessed(Object messageType, long sentNanos, long startedNanos, long finishedNanos) {
+        if (name == null) {
+            name = Thread.currentThread().getName();
+        }
+        queueLatency.record(startedNanos - sentNanos);
+
+        ProcessingTime processingTime = processingTimes.get(messageType);
+        if (processingTime == null) {
+            processingTime = new ProcessingTime(MessageTypes.describe(messageType));
+            processingTimes.put(messageType, processingTime);
+        }
+        processingTime.record(finishedNanos - startedNanos);
+
+        windowCount++;
+        long elapsed = finishedNanos - windowStart;
+        if (elapsed >= SECOND) {
+            lastWindowRate = windowCount * (double) SECOND / elapsed;
+            lastWindowEnd = finishedNanos;
+            windowStart = finishedNanos;
+            windowCount = 0;
+        }
+        messagesProcessed++;
+    }
+
+    /**
+     * The name of the thread which processed the first message, which for named actor threads is the name of the
+     * actor thread, or null if no messages have been processed.
+     */
+    @Nullable
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of messages which have been sent to the actor thread but not yet processed.
+     */
+    @Override
+    public long getQueueDepth() {
+        long processed = messagesProcessed; // read first, so that the depth will not be negative
+        return messagesSent.get() - processed;
+    }
+
+    @Override
+    public long getMessagesProcessed() {
+        return messagesProcessed;
+    }
+
+    /**
+     * The rate of processing messages during the last whole second which had some messages. Zero if no messages have
+     * been processed during the last two seconds.
+     */
+    @Override
+    public double getMessagesPerSecond() {
+        if (System.nanoTime() - lastWindowEnd > 2 * SECOND) {
+            return 0;
+        }
+        return lastWindowRate;
+    }
+
+    /**
+     * How long the messages have waited in the mailbox, from being sent to starting to process them.
+     */
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    @Override
+    public long getQueueLatencyMedianNanos() {
+        return queueLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getQueueLatency99thPercentileNanos() {
+        return queueLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getQueueLatencyMaxNanos() {
+        return queueLatency.getMax();
+    }
+
+    /**
+     * How long processing each type of message has taken.
+     */
+    public List<ProcessingTime> getProcessingTimes() {
+        return new ArrayList<>(processingTimes.values());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + name + ", queueDepth=" + getQueueDepth() + ", messagesProcessed=" + messagesProcessed + ")";
+    }
+}
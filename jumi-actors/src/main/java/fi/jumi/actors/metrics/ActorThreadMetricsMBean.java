@@ -0,0 +1,25 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.metrics;
+
+/**
+ * Management interface of {@link ActorThreadMetrics}, for registering it to an {@link javax.management.MBeanServer}.
+ */
+public interface ActorThreadMetricsMBean {
+
+    String getName();
+
+    long getQueueDepth();
+
+    long getMessagesProcessed();
+
+    double getMessagesPerSecond();
+
+    long getQueueLatencyMedianNanos();
+
+    long getQueueLatency99thPercentileNanos();
+
+    long getQueueLatencyMaxNanos();
+}
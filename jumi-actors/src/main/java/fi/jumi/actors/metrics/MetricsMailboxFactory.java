@@ -0,0 +1,154 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.metrics;
+
+import fi.jumi.actors.listeners.MessageTypes;
+import fi.jumi.actors.queue.*;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measures the actor threads whose mailboxes it creates: how many messages are waiting in the mailbox, how long they
+ * wait there, how long processing each type of message takes, and how many messages are processed per second. Give it
+ * to {@link fi.jumi.actors.Actors#startActorThread(MailboxFactory)} for the actor threads which should be measured.
+ * Actor threads which use other mailbox factories are not slowed down at all.
+ * <p>
+ * The mailboxes put every message into an envelope which records when it was sent, so measuring an actor thread costs
+ * two calls to {@link System#nanoTime()} and one small allocation per message.
+ * <p>
+ * The messages are classified by {@link MessageTypes#typeOf(Object)}, which looks inside the envelopes of the actors
+ * container, so that the processing times are measured separately for each actor method.
+ * <p>
+ * An actor thread's metrics are removed from {@link #getActorThreads()} when it stops, i.e. after it has processed
+ * the message sent by {@link fi.jumi.actors.ActorThread#stop()} or it has been interrupted while processing a message.
+ */
+@ThreadSafe
+public class MetricsMailboxFactory implements MailboxFactory {
+
+    private final MailboxFactory mailboxFactory;
+    private final List<ActorThreadMetrics> actorThreads = new CopyOnWriteArrayList<>();
+
+    public MetricsMailboxFactory() {
+        this(MessageQueue::new);
+    }
+
+    /**
+     * @param mailboxFactory creates the actual mailboxes
+     */
+    public MetricsMailboxFactory(MailboxFactory mailboxFactory) {
+        this.mailboxFactory = mailboxFactory;
+    }
+
+    @Override
+    public Mailbox<Runnable> newMailbox() {
+        ActorThreadMetrics metrics = new ActorThreadMetrics();
+        actorThreads.add(metrics);
+        Mailbox<Runnable> mailbox = mailboxFactory.newMailbox();
+        if (mailbox instanceof ThreadBoundMailbox) {
+            return new ThreadBoundMeasuredMailbox(mailbox, metrics);
+        }
+        return new MeasuredMailbox(mailbox, metrics);
+    }
+
+    /**
+     * Returns the metrics of every running actor thread which has been given a mailbox by this factory.
+     */
+    public List<ActorThreadMetrics> getActorThreads() {
+        return Collections.unmodifiableList(actorThreads);
+    }
+
+
+    @ThreadSafe
+    private class MeasuredMailbox implements Mailbox<Runnable> {
+        private final Mailbox<Runnable> mailbox;
+        private final ActorThreadMetrics metrics;
+
+        public MeasuredMailbox(Mailbox<Runnable> mailbox, ActorThreadMetrics metrics) {
+            this.mailbox = mailbox;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void send(Runnable message) {
+            metrics.onMessageSent();
+            long sentNanos = System.nanoTime();
+            if (message instanceof LastMessage) {
+                // the envelope must not hide from the mailbox that the actor thread is stopping
+                mailbox.send(new MeasuredLastMessage(message, metrics, sentNanos));
+            } else {
+                mailbox.send(new MeasuredMessage(message, metrics, sentNanos));
+            }
+        }
+
+        // The envelopes are measured when they are run, so receiving them needs no changes
+
+        @Override
+        public Runnable take() throws InterruptedException {
+            return mailbox.take();
+        }
+
+        @Nullable
+        @Override
+        public Runnable poll() {
+            return mailbox.poll();
+        }
+
+        @Override
+        public int drainTo(MessageSender<? super Runnable> target, int maxMessages) {
+            return mailbox.drainTo(target, maxMessages);
+        }
+    }
+
+    @ThreadSafe
+    private class ThreadBoundMeasuredMailbox extends MeasuredMailbox implements ThreadBoundMailbox {
+
+        public ThreadBoundMeasuredMailbox(Mailbox<Runnable> mailbox, ActorThreadMetrics metrics) {
+            super(mailbox, metrics);
+        }
+    }
+
+    @Immutable
+    private class MeasuredMessage implements Runnable, Envelope {
+        private final Runnable message;
+        private final ActorThreadMetrics metrics;
+        private final long sentNanos;
+
+        public MeasuredMessage(Runnable message, ActorThreadMetrics metrics, long sentNanos) {
+            this.message = message;
+            this.metrics = metrics;
+            this.sentNanos = sentNanos;
+        }
+
+        @Override
+        public void run() {
+            long startedNanos = System.nanoTime();
+            try {
+                message.run();
+            } finally {
+                metrics.onMessageProcessed(MessageTypes.typeOf(message), sentNanos, startedNanos, System.nanoTime());
+                if (message instanceof LastMessage || Thread.currentThread().isInterrupted()) {
+                    // the actor thread stops
+                    actorThreads.remove(metrics);
+                }
+            }
+        }
+
+        @Override
+        public Object getMessage() {
+            return message;
+        }
+    }
+
+    @Immutable
+    private class MeasuredLastMessage extends MeasuredMessage implements LastMessage {
+
+        public MeasuredLastMessage(Runnable message, ActorThreadMetrics metrics, long sentNanos) {
+            super(message, metrics, sentNanos);
+        }
+    }
+}
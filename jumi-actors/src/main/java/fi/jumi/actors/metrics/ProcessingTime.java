@@ -0,0 +1,61 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * How long an actor thread has spent processing one type of message. Updated by the actor thread which processes the
+ * messages, and can be read by any thread.
+ */
+@ThreadSafe
+public class ProcessingTime {
+
+    private final String messageType;
+    private volatile long count = 0;
+    private volatile long totalNanos = 0;
+    private volatile long maxNanos = 0;
+
+    ProcessingTime(String messageType) {
+        this.messageType = messageType;
+    }
+
+    void record(long nanos) {
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+        count++;
+    }
+
+    /**
+     * The actor method, for example {@code "Consumer.onMessage"}, or the class of the event if the method is not known.
+     */
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        long count = this.count;
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + messageType + ", count=" + count + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos + ")";
+    }
+}
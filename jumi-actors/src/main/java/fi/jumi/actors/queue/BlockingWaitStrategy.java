@@ -0,0 +1,20 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Blocks the thread immediately using {@link MessageReceiver#take()}. Uses no CPU while idle, but the first message
+ * after an idle period pays the cost of waking up the thread. The default wait strategy.
+ */
+@Immutable
+public class BlockingWaitStrategy implements WaitStrategy {
+
+    @Override
+    public <T> T take(MessageReceiver<T> receiver) throws InterruptedException {
+        return receiver.take();
+    }
+}
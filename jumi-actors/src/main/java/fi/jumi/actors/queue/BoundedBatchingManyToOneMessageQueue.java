@@ -0,0 +1,338 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Asynchronous bounded queue for message passing, for when there are many senders but only one receiver. Limits how
+ * many messages may be waiting in the mailbox, so that a slow actor cannot build up an unbounded backlog.
+ * <p>
+ * The receiver reads the messages which it has sent to itself before the messages from other senders. The other
+ * senders' messages are read in round robin fashion, up to {@code batchSize} messages from one sender at a time. The
+ * order of messages from any single sender is preserved.
+ * <p>
+ * Messages which the receiving thread sends to itself do not count towards the capacity, so an actor can never
+ * deadlock by sending messages to its own full mailbox. When the mailbox is full of messages from other senders,
+ * the {@link OverflowPolicy} decides what happens. A sender which is waiting for room stops waiting when it's
+ * interrupted; its message is then enqueued regardless of the capacity and its interrupted status is kept.
+ * <p>
+ * A {@link LastMessage}, such as the one which stops an actor thread, is read after all the messages which were sent
+ * before it, regardless of their senders, and it does not count towards the capacity. After it has been sent, no
+ * sender waits for room anymore.
+ * <p>
+ * Only one thread at a time may call {@link #take()} or {@link #poll()}. The senders and the receiver are told apart
+ * by their threads, so this mailbox cannot be used with {@link fi.jumi.actors.PooledActors}, where the messages of
+ * one actor thread are sent and received by whichever thread of the pool happens to run it.
+ */
+@ThreadSafe
+public class BoundedBatchingManyToOneMessageQueue<T> implements Mailbox<T>, ThreadBoundMailbox {
+
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    @GuardedBy("lock")
+    private final Map<Thread, Lane<T>> lanesBySender = new HashMap<>();
+    @GuardedBy("lock")
+    private final List<Lane<T>> lanes = new ArrayList<>();
+    @GuardedBy("lock")
+    private int nextLane = 0;
+    @GuardedBy("lock")
+    private int size = 0;
+    @GuardedBy("lock")
+    private long droppedMessages = 0;
+    @GuardedBy("lock")
+    private final Queue<Barrier<T>> lastMessages = new ArrayDeque<>();
+    @GuardedBy("lock")
+    private boolean stopping = false;
+
+    private volatile Thread receiver;
+    private final UnboundedManyToOneMessageQueue<T> selfSentMessages = new UnboundedManyToOneMessageQueue<>();
+
+    // accessed only by the receiver
+    private final Queue<T> currentBatch = new ArrayDeque<>();
+
+    public BoundedBatchingManyToOneMessageQueue(int capacity) {
+        this(capacity, 16, OverflowPolicy.BLOCK);
+    }
+
+    public BoundedBatchingManyToOneMessageQueue(int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, but was " + capacity);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1, but was " + batchSize);
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void send(T message) {
+        if (message instanceof LastMessage) {
+            sendLastMessage(message);
+            return;
+        }
+        Thread sender = Thread.currentThread();
+        if (sender == receiver) {
+            selfSentMessages.send(message);
+            return;
+        }
+        lock.lock();
+        try {
+            if (size >= capacity && !stopping) {
+                makeRoom();
+            }
+            Lane<T> lane = lanesBySender.get(sender);
+            if (lane == null) {
+                lane = new Lane<>(sender);
+                lanesBySender.put(sender, lane);
+                lanes.add(lane);
+            }
+            lane.messages.add(message);
+            lane.sent++;
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sendLastMessage(T message) {
+        lock.lock();
+        try {
+            Map<Lane<T>, Long> sentBefore = new HashMap<>();
+            for (Lane<T> lane : lanes) {
+                sentBefore.put(lane, lane.sent);
+            }
+            lastMessages.add(new Barrier<>(message, sentBefore));
+            stopping = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void makeRoom() {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    while (size >= capacity && !stopping) {
+                        notFull.await();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            case FAIL_FAST:
+                throw new IllegalStateException("mailbox full; capacity is " + capacity);
+            case DROP_OLDEST:
+                Lane<T> longest = lanes.get(0);
+                for (Lane<T> lane : lanes) {
+                    if (lane.messages.size() > longest.messages.size()) {
+                        longest = lane;
+                    }
+                }
+                longest.messages.remove();
+                longest.received++;
+                size--;
+                droppedMessages++;
+                return;
+            default:
+                throw new AssertionError(overflowPolicy);
+        }
+    }
+
+    /**
+     * Returns how many messages have been discarded due to {@link OverflowPolicy#DROP_OLDEST}.
+     */
+    public long getDroppedMessages() {
+        lock.lock();
+        try {
+            return droppedMessages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T message = poll();
+        if (message != null) {
+            return message;
+        }
+        lock.lockInterruptibly();
+        try {
+            while (isEmpty()) {
+                notEmpty.await();
+            }
+            readNextBatch();
+        } finally {
+            lock.unlock();
+        }
+        return currentBatch.remove();
+    }
+
+    @Nullable
+    @Override
+    public T poll() {
+        Thread current = Thread.currentThread();
+        if (receiver != current) {
+            changeReceiver(current);
+        }
+
+        T message = currentBatch.poll();
+        if (message != null) {
+            return message;
+        }
+        message = selfSentMessages.poll();
+        if (message != null) {
+            return message;
+        }
+        lock.lock();
+        try {
+            if (isEmpty()) {
+                return null;
+            }
+            readNextBatch();
+        } finally {
+            lock.unlock();
+        }
+        return currentBatch.remove();
+    }
+
+    private void changeReceiver(Thread newReceiver) {
+        lock.lock();
+        try {
+            receiver = newReceiver;
+            // Messages which the new receiver sent before it became the receiver must be
+            // read before the messages which it will send to itself from now on.
+            Lane<T> lane = lanesBySender.remove(newReceiver);
+            if (lane != null) {
+                int index = lanes.indexOf(lane);
+                lanes.remove(index);
+                if (index < nextLane) {
+                    nextLane--;
+                }
+                for (T message : lane.messages) {
+                    selfSentMessages.send(message);
+                }
+                size -= lane.messages.size();
+                lane.received = lane.sent;
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(MessageSender<? super T> target, int maxMessages) {
+        int count = 0;
+        T message;
+        while (count < maxMessages && (message = poll()) != null) {
+            target.send(message);
+            count++;
+        }
+        return count;
+    }
+
+    @GuardedBy("lock")
+    private boolean isEmpty() {
+        return size == 0 && lastMessages.isEmpty();
+    }
+
+    @GuardedBy("lock")
+    private void readNextBatch() {
+        Barrier<T> barrier = lastMessages.peek();
+        if (barrier != null && barrier.isReached()) {
+            lastMessages.remove();
+            currentBatch.add(barrier.message);
+            return;
+        }
+
+        // If there is a barrier which has not been reached, some lane still has messages which were sent before it.
+        Lane<T> lane;
+        int maxMessages;
+        do {
+            if (nextLane >= lanes.size()) {
+                nextLane = 0;
+            }
+            lane = lanes.get(nextLane);
+            maxMessages = barrier == null ? batchSize : Math.min(batchSize, barrier.messagesBefore(lane));
+            if (lane.messages.isEmpty()) {
+                // remove lanes which are not in use, so that senders which have died will not leak memory
+                lanes.remove(nextLane);
+                lanesBySender.remove(lane.sender);
+                lane = null;
+            } else if (maxMessages == 0) {
+                // the messages of this lane were sent after the barrier
+                nextLane++;
+                lane = null;
+            }
+        } while (lane == null);
+
+        for (int i = 0; i < maxMessages && !lane.messages.isEmpty(); i++) {
+            currentBatch.add(lane.messages.remove());
+            lane.received++;
+            size--;
+        }
+        nextLane++;
+        notFull.signalAll();
+    }
+
+
+    @ThreadSafe
+    private static class Lane<T> {
+        // guarded by the queue's lock
+        final Thread sender;
+        final Queue<T> messages = new ArrayDeque<>();
+        long sent = 0;
+        long received = 0;
+
+        Lane(Thread sender) {
+            this.sender = sender;
+        }
+    }
+
+    @ThreadSafe
+    private static class Barrier<T> {
+        // guarded by the queue's lock
+        final T message;
+        final Map<Lane<T>, Long> sentBefore;
+
+        Barrier(T message, Map<Lane<T>, Long> sentBefore) {
+            this.message = message;
+            this.sentBefore = sentBefore;
+        }
+
+        boolean isReached() {
+            for (Lane<T> lane : sentBefore.keySet()) {
+                if (messagesBefore(lane) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int messagesBefore(Lane<T> lane) {
+            Long sent = sentBefore.get(lane);
+            if (sent == null) {
+                return 0;
+            }
+            return (int) Math.max(0, sent - lane.received);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Polls for messages in a busy loop. Gives the lowest latency, but keeps one CPU core fully busy even when idle, so
+ * use it only when there are more cores than busy spinning threads.
+ */
+@Immutable
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public <T> T take(MessageReceiver<T> receiver) throws InterruptedException {
+        T message;
+        while ((message = receiver.poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return message;
+    }
+}
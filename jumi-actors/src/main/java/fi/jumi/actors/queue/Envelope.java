@@ -0,0 +1,16 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+/**
+ * Message in a mailbox which wraps another message, for example the event which is delivered to an actor. Lets
+ * mailboxes and message listeners tell what the message is about, without knowing how it's wrapped.
+ *
+ * @see fi.jumi.actors.listeners.MessageTypes#typeOf(Object)
+ */
+public interface Envelope {
+
+    Object getMessage();
+}
@@ -0,0 +1,15 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+/**
+ * Marks the last message which the receiver of a mailbox will process, such as the one which is sent by
+ * {@link fi.jumi.actors.ActorThread#stop()}. It is received only after all the messages which were sent to the same
+ * mailbox before it, also those from other threads, even if the mailbox otherwise reorders the messages of different
+ * senders. After it has been sent, bounded mailboxes do not make senders wait for room, because the receiver is
+ * about to stop reading messages.
+ */
+public interface LastMessage {
+}
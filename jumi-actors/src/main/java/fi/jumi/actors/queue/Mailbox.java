@@ -0,0 +1,15 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import fi.jumi.actors.ActorThread;
+
+/**
+ * Both ends of a message queue. Each {@link ActorThread} reads its messages from its own mailbox.
+ *
+ * @see MailboxFactory
+ */
+public interface Mailbox<T> extends MessageSender<T>, MessageReceiver<T> {
+}
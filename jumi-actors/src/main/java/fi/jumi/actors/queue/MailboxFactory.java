@@ -0,0 +1,18 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import fi.jumi.actors.*;
+
+/**
+ * Creates the mailbox for an {@link ActorThread}. Called once for every actor thread, so each call
+ * must return a new mailbox. The simplest implementation is {@code MessageQueue::new}.
+ *
+ * @see Actors#startActorThread(MailboxFactory)
+ */
+public interface MailboxFactory {
+
+    Mailbox<Runnable> newMailbox();
+}
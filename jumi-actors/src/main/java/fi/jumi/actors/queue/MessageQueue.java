@@ -6,15 +6,18 @@ package fi.jumi.actors.queue;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Asynchronous unbounded queue for message passing.
  */
 @ThreadSafe
-public class MessageQueue<T> implements MessageSender<T>, MessageReceiver<T> {
+public class MessageQueue<T> implements Mailbox<T> {
 
     private final BlockingQueue<T> queue = new LinkedBlockingQueue<>();
+    private final AtomicReference<List<T>> spareBatch = new AtomicReference<List<T>>(new ArrayList<T>());
 
     @Override
     public void send(T message) {
@@ -31,4 +34,24 @@ public class MessageQueue<T> implements MessageSender<T>, MessageReceiver<T> {
     public T poll() {
         return queue.poll();
     }
+
+    @Override
+    public int drainTo(MessageSender<? super T> target, int maxMessages) {
+        // take all the messages with one lock acquisition, but deliver them only after releasing the lock
+        List<T> messages = spareBatch.getAndSet(null);
+        if (messages == null) {
+            // somebody else is draining this queue at the same time
+            messages = new ArrayList<>();
+        }
+        try {
+            int count = queue.drainTo(messages, maxMessages);
+            for (int i = 0; i < count; i++) {
+                target.send(messages.get(i));
+            }
+            return count;
+        } finally {
+            messages.clear();
+            spareBatch.set(messages);
+        }
+    }
 }
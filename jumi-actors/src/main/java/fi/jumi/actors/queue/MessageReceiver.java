@@ -12,4 +12,10 @@ public interface MessageReceiver<T> {
 
     @Nullable
     T poll();
+
+    /**
+     * Removes at most {@code maxMessages} messages which are immediately available and sends them in order to the
+     * target. Does not wait for messages. Returns the number of messages that were removed.
+     */
+    int drainTo(MessageSender<? super T> target, int maxMessages);
 }
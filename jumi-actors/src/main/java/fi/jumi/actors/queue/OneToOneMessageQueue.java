@@ -0,0 +1,214 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous unbounded queue for message passing, for when almost all messages come from one sender, as in a
+ * pipeline where actor thread A sends messages only to actor thread B. Use {@code OneToOneMessageQueue::new} as the
+ * {@link MailboxFactory} of actor thread B.
+ * <p>
+ * The first thread which sends a message to this queue becomes its producer. The producer's messages go through a
+ * single-producer single-consumer queue which uses neither locks nor atomic read-modify-write operations, and which
+ * reuses its arrays, so sending does not produce garbage. Messages from all other threads, including the receiver
+ * itself and whoever stops the actor thread, go through an {@link UnboundedManyToOneMessageQueue}. Each of them
+ * remembers how many messages the producer had sent before it, so that it's read after those messages and before
+ * the producer's later messages. As with any mailbox, if one thread sends a message after another thread has sent
+ * its message, the messages are read in that order; for example {@link fi.jumi.actors.ActorThread#stop()} takes
+ * effect only after the producer's earlier messages have been processed.
+ * <p>
+ * Only one thread at a time may call {@link #take()} or {@link #poll()}.
+ * <p>
+ * Based on the unbounded SPSC queue of FastFlow, which links bounded Lamport queues together:
+ * http://calvados.di.unipi.it/storage/paper_files/2012_spsc_europar.pdf
+ */
+@ThreadSafe
+public class OneToOneMessageQueue<T> implements Mailbox<T> {
+
+    private final int chunkSize;
+    private final AtomicReference<Thread> producer = new AtomicReference<>();
+    private final AtomicReference<Chunk<T>> spareChunk = new AtomicReference<>();
+    private final PaddedAtomicLong producedCount = new PaddedAtomicLong(0);
+    private final UnboundedManyToOneMessageQueue<FromOtherSender<T>> otherSenders = new UnboundedManyToOneMessageQueue<>();
+    private volatile Thread waitingReceiver;
+
+    private final Cursor<T> producerSide; // accessed only by the producer
+    private final Cursor<T> receiverSide; // accessed only by the receiver
+
+    public OneToOneMessageQueue() {
+        this(1024);
+    }
+
+    /**
+     * @param chunkSize how many messages fit into one of the arrays which are linked together
+     */
+    public OneToOneMessageQueue(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be at least 1, but was " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        Chunk<T> first = new Chunk<>(chunkSize);
+        producerSide = new Cursor<>(first);
+        receiverSide = new Cursor<>(first);
+    }
+
+    @Override
+    public void send(T message) {
+        Thread sender = Thread.currentThread();
+        Thread producer = this.producer.get();
+        if (producer == null && this.producer.compareAndSet(null, sender)) {
+            producer = sender;
+        }
+        if (sender == producer) {
+            sendFromProducer(message);
+        } else {
+            otherSenders.send(new FromOtherSender<>(message, producedCount.get()));
+        }
+
+        // Publishing the message was a volatile write, so either the receiver sees the message or we see the
+        // waiting receiver.
+        Thread receiver = waitingReceiver;
+        if (receiver != null) {
+            LockSupport.unpark(receiver);
+        }
+    }
+
+    private void sendFromProducer(T message) {
+        Cursor<T> cursor = producerSide;
+        if (cursor.index == chunkSize) {
+            Chunk<T> next = spareChunk.getAndSet(null);
+            if (next == null) {
+                next = new Chunk<>(chunkSize);
+            }
+            cursor.chunk.next = next;
+            cursor.chunk = next;
+            cursor.index = 0;
+        }
+        cursor.chunk.messages.lazySet(cursor.index, message);
+        cursor.index++;
+        cursor.count++;
+        producedCount.set(cursor.count); // publishes the message
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T message = poll();
+        while (message == null) {
+            message = awaitMessages();
+        }
+        return message;
+    }
+
+    @Nullable
+    private T awaitMessages() throws InterruptedException {
+        T message;
+        waitingReceiver = Thread.currentThread();
+        try {
+            message = poll();
+            if (message == null && producedCount.get() == receiverSide.count) {
+                LockSupport.park(this);
+            }
+        } finally {
+            waitingReceiver = null;
+        }
+        if (message == null && Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return message;
+    }
+
+    @Nullable
+    @Override
+    public T poll() {
+        Cursor<T> cursor = receiverSide;
+        if (cursor.nextFromOtherSender == null) {
+            cursor.nextFromOtherSender = otherSenders.poll();
+        }
+        FromOtherSender<T> fromOtherSender = cursor.nextFromOtherSender;
+        if (fromOtherSender != null && fromOtherSender.producedBefore <= cursor.count) {
+            cursor.nextFromOtherSender = null;
+            return fromOtherSender.message;
+        }
+        // If there is a message from another sender, the producer's messages which were sent before it
+        // have already been published, so this will not return null.
+        return pollFromProducer(cursor);
+    }
+
+    @Nullable
+    private T pollFromProducer(Cursor<T> cursor) {
+        if (cursor.index == chunkSize) {
+            Chunk<T> next = cursor.chunk.next;
+            if (next == null) {
+                return null;
+            }
+            Chunk<T> consumed = cursor.chunk;
+            cursor.chunk = next;
+            cursor.index = 0;
+            // all the messages of the consumed chunk have already been cleared, so the producer may reuse it
+            consumed.next = null;
+            spareChunk.lazySet(consumed);
+        }
+        T message = cursor.chunk.messages.get(cursor.index);
+        if (message == null) {
+            return null;
+        }
+        cursor.chunk.messages.lazySet(cursor.index, null);
+        cursor.index++;
+        cursor.count++;
+        return message;
+    }
+
+    @Override
+    public int drainTo(MessageSender<? super T> target, int maxMessages) {
+        int count = 0;
+        T message;
+        while (count < maxMessages && (message = poll()) != null) {
+            target.send(message);
+            count++;
+        }
+        return count;
+    }
+
+
+    @ThreadSafe
+    private static class Chunk<T> {
+        final AtomicReferenceArray<T> messages;
+        volatile Chunk<T> next;
+
+        Chunk(int size) {
+            messages = new AtomicReferenceArray<>(size);
+        }
+    }
+
+    @Immutable
+    private static class FromOtherSender<T> {
+        final T message;
+        final long producedBefore;
+
+        FromOtherSender(T message, long producedBefore) {
+            this.message = message;
+            this.producedBefore = producedBefore;
+        }
+    }
+
+    @NotThreadSafe
+    @SuppressWarnings("unused")
+    private static class Cursor<T> {
+        Chunk<T> chunk;
+        int index;
+        long count; // how many of the producer's messages have been sent or received
+        FromOtherSender<T> nextFromOtherSender; // used only by the receiver
+        // fill the rest of the cache line, so that the producer and the receiver do not slow down each other
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        Cursor(Chunk<T> chunk) {
+            this.chunk = chunk;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+/**
+ * What a bounded {@link Mailbox} does when a message is sent to it while it is full.
+ *
+ * @see BoundedBatchingManyToOneMessageQueue
+ * @see RingBufferMessageQueue
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The sender waits until there is room in the mailbox. Gives backpressure to the senders.
+     */
+    BLOCK,
+
+    /**
+     * The sender gets an {@link IllegalStateException} and the message is not enqueued.
+     */
+    FAIL_FAST,
+
+    /**
+     * The oldest message from the sender which has the most messages in the mailbox is discarded to make room for
+     * the new message.
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,23 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link AtomicLong} which fills the rest of its cache line, so that writing it does not slow down the threads which
+ * access the objects allocated after it.
+ */
+@ThreadSafe
+@SuppressWarnings("unused")
+final class PaddedAtomicLong extends AtomicLong {
+
+    private long p1, p2, p3, p4, p5, p6, p7;
+
+    public PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+}
@@ -0,0 +1,286 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.*;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous bounded queue for message passing, for when there are many senders but only one receiver. The messages
+ * are stored in a ring of slots which are allocated up front, so sending a message does not produce garbage, and
+ * {@link #drainTo} lets the receiver process the messages in place before freeing their slots.
+ * <p>
+ * Senders claim slots by incrementing a shared sequence number and then publish their message by updating the
+ * sequence number of the slot, so sending does not take any locks. The sequence numbers which the senders and the
+ * receiver update are kept on cache lines of their own.
+ * <p>
+ * Messages which the receiving thread sends to itself when the queue is full are kept aside and read after the
+ * messages which were in the queue at that time, so an actor can never deadlock by sending messages to its own full
+ * mailbox. When the queue is full of messages from other senders, the {@link OverflowPolicy} decides what happens;
+ * {@link OverflowPolicy#DROP_OLDEST} is not supported. Blocked senders poll for a free slot instead of being woken up
+ * by the receiver, which keeps the receiver's side cheap.
+ * <p>
+ * A {@link LastMessage} never waits for room and never fails; it is kept aside and read after the messages which were
+ * sent before it. After it has been sent, senders no longer wait for room but keep their messages aside the same way.
+ * A sender which is interrupted while waiting for room does likewise, and its interrupted status is left set.
+ * <p>
+ * Only one thread at a time may call {@link #take()}, {@link #poll()} or {@link #drainTo}. The receiver is told apart
+ * from the senders by its thread, so this mailbox cannot be used with {@link fi.jumi.actors.PooledActors}.
+ * <p>
+ * Based on Dmitry Vyukov's bounded MPMC queue and the LMAX Disruptor:
+ * http://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue
+ */
+@ThreadSafe
+public class RingBufferMessageQueue<T> implements Mailbox<T>, ThreadBoundMailbox {
+
+    private final Slot<T>[] slots;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0); // written only by the receiver
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+    private volatile Thread receiver;
+    private volatile Thread waitingReceiver;
+    private volatile boolean stopping = false;
+    private final Mailbox<AsideMessage<T>> asideMessages = new UnboundedManyToOneMessageQueue<>();
+
+    // accessed only by the receiver
+    private final Queue<T> selfSentMessages = new ArrayDeque<>();
+    private long selfSentMessagesAfter;
+    private AsideMessage<T> nextAsideMessage;
+
+    public RingBufferMessageQueue(int capacity) {
+        this(capacity, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @param capacity must be a power of two and at least 2, so that a published slot can be told apart from a slot
+     *                 which is free for the next round
+     */
+    @SuppressWarnings("unchecked")
+    public RingBufferMessageQueue(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two and at least 2, but was " + capacity);
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            throw new IllegalArgumentException("overflow policy " + overflowPolicy + " is not supported");
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot<>(i);
+        }
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void send(T message) {
+        if (message instanceof LastMessage) {
+            sendAside(message);
+            stopping = true; // only after the last message, so that the senders it released are read after it
+            return;
+        }
+        Thread sender = Thread.currentThread();
+        if (sender == receiver && !selfSentMessages.isEmpty()) {
+            // keep the messages which the receiver sends to itself in order
+            selfSentMessages.add(message);
+            return;
+        }
+        long sequence;
+        while ((sequence = tryClaim()) < 0) {
+            if (sender == receiver) {
+                selfSentMessagesAfter = tail.get();
+                selfSentMessages.add(message);
+                return;
+            }
+            if (stopping || !awaitRoom()) {
+                sendAside(message);
+                return;
+            }
+        }
+        Slot<T> slot = slots[(int) sequence & mask];
+        slot.message = message;
+        slot.sequence = sequence + 1;
+        wakeUpReceiver();
+    }
+
+    private void sendAside(T message) {
+        // The volatile write is needed so that either the receiver sees the message or we see the waiting receiver.
+        asideMessages.send(new AsideMessage<>(message, tail.get()));
+        wakeUpReceiver();
+    }
+
+    private void wakeUpReceiver() {
+        Thread receiver = waitingReceiver;
+        if (receiver != null) {
+            LockSupport.unpark(receiver);
+        }
+    }
+
+    private long tryClaim() {
+        long sequence = tail.get();
+        while (true) {
+            long difference = slots[(int) sequence & mask].sequence - sequence;
+            if (difference == 0) {
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+                sequence = tail.get();
+            } else if (difference < 0) {
+                return -1; // full
+            } else {
+                sequence = tail.get(); // another sender claimed the slot
+            }
+        }
+    }
+
+    /**
+     * @return false if the sender should stop waiting and keep its message aside
+     */
+    private boolean awaitRoom() {
+        switch (overflowPolicy) {
+            case BLOCK:
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(1);
+                return true;
+            case FAIL_FAST:
+                throw new IllegalStateException("mailbox full; capacity is " + slots.length);
+            default:
+                throw new AssertionError(overflowPolicy);
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T message;
+        while ((message = poll()) == null) {
+            awaitMessages();
+        }
+        return message;
+    }
+
+    private void awaitMessages() throws InterruptedException {
+        waitingReceiver = Thread.currentThread();
+        try {
+            if (nextPublishedSlot() == null && !isTimeToReadAsideMessage()) {
+                LockSupport.park(this);
+            }
+        } finally {
+            waitingReceiver = null;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Nullable
+    @Override
+    public T poll() {
+        becomeReceiver();
+        if (isTimeToReadSelfSentMessages()) {
+            return selfSentMessages.poll();
+        }
+        if (isTimeToReadAsideMessage()) {
+            return takeAsideMessage();
+        }
+        Slot<T> slot = nextPublishedSlot();
+        if (slot == null) {
+            return null;
+        }
+        T message = slot.message;
+        release(slot);
+        return message;
+    }
+
+    @Override
+    public int drainTo(MessageSender<? super T> target, int maxMessages) {
+        becomeReceiver();
+        int count = 0;
+        while (count < maxMessages) {
+            if (isTimeToReadSelfSentMessages()) {
+                target.send(selfSentMessages.remove());
+            } else if (isTimeToReadAsideMessage()) {
+                target.send(takeAsideMessage());
+            } else {
+                Slot<T> slot = nextPublishedSlot();
+                if (slot == null) {
+                    break;
+                }
+                try {
+                    target.send(slot.message);
+                } finally {
+                    release(slot);
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private void becomeReceiver() {
+        Thread current = Thread.currentThread();
+        if (receiver != current) {
+            receiver = current;
+        }
+    }
+
+    private boolean isTimeToReadSelfSentMessages() {
+        return !selfSentMessages.isEmpty() && head.get() >= selfSentMessagesAfter;
+    }
+
+    private boolean isTimeToReadAsideMessage() {
+        if (nextAsideMessage == null) {
+            nextAsideMessage = asideMessages.poll();
+        }
+        return nextAsideMessage != null && head.get() >= nextAsideMessage.sentAfter;
+    }
+
+    private T takeAsideMessage() {
+        T message = nextAsideMessage.message;
+        nextAsideMessage = null;
+        return message;
+    }
+
+    @Nullable
+    private Slot<T> nextPublishedSlot() {
+        long sequence = head.get();
+        Slot<T> slot = slots[(int) sequence & mask];
+        return slot.sequence == sequence + 1 ? slot : null;
+    }
+
+    private void release(Slot<T> slot) {
+        long sequence = head.get();
+        slot.message = null;
+        slot.sequence = sequence + slots.length;
+        head.lazySet(sequence + 1);
+    }
+
+
+    @ThreadSafe
+    private static class Slot<T> {
+        // published by the volatile write of the sequence
+        T message;
+        volatile long sequence;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    @Immutable
+    private static class AsideMessage<T> {
+        final T message;
+        final long sentAfter;
+
+        AsideMessage(T message, long sentAfter) {
+            this.message = message;
+            this.sentAfter = sentAfter;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * First polls for messages in a busy loop, then calls {@link Thread#yield()} between polls, and finally blocks the
+ * thread using {@link MessageReceiver#take()}. Messages which arrive soon after the previous one avoid the cost of
+ * waking up the thread, yet no CPU is used during longer idle periods.
+ */
+@Immutable
+public class SpinThenParkWaitStrategy implements WaitStrategy {
+
+    private final int spinTries;
+    private final int yieldTries;
+
+    public SpinThenParkWaitStrategy() {
+        this(100, 100);
+    }
+
+    public SpinThenParkWaitStrategy(int spinTries, int yieldTries) {
+        this.spinTries = spinTries;
+        this.yieldTries = yieldTries;
+    }
+
+    @Override
+    public <T> T take(MessageReceiver<T> receiver) throws InterruptedException {
+        for (int tries = 0; tries < spinTries + yieldTries; tries++) {
+            T message = receiver.poll();
+            if (message != null) {
+                return message;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (tries >= spinTries) {
+                Thread.yield();
+            }
+        }
+        return receiver.take();
+    }
+}
@@ -0,0 +1,13 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+/**
+ * Marks a mailbox which tells its receiver and senders apart by their threads, so its receiver must always run in the
+ * same thread. Such mailboxes cannot be used with {@link fi.jumi.actors.PooledActors}, where the messages of one actor
+ * thread are sent and received by whichever thread of the pool happens to run it.
+ */
+public interface ThreadBoundMailbox {
+}
@@ -0,0 +1,109 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous unbounded queue for message passing, for when there are many senders but only one receiver. Sending
+ * does not take any locks, so it scales better than {@link MessageQueue} when many threads send messages to the same
+ * actor thread.
+ * <p>
+ * Only one thread at a time may call {@link #take()} or {@link #poll()}. Every actor thread has just one thread which
+ * processes its messages, so this queue can be used as the {@link Mailbox} of any actor thread.
+ * <p>
+ * Based on Dmitry Vyukov's non-intrusive MPSC node-based queue:
+ * http://www.1024cores.net/home/lock-free-algorithms/queues/non-intrusive-mpsc-node-based-queue
+ */
+@ThreadSafe
+public class UnboundedManyToOneMessageQueue<T> implements Mailbox<T> {
+
+    private final AtomicReference<Node<T>> last;
+    private volatile Thread waitingReceiver;
+
+    // accessed only by the receiver
+    private Node<T> first;
+
+    public UnboundedManyToOneMessageQueue() {
+        Node<T> stub = new Node<>(null);
+        first = stub;
+        last = new AtomicReference<>(stub);
+    }
+
+    @Override
+    public void send(T message) {
+        Node<T> node = new Node<>(message);
+        Node<T> previous = last.getAndSet(node);
+        // Until this line, the receiver will not see this message nor any messages sent after it.
+        // The volatile write is needed so that either the receiver sees the message or we see the waiting receiver.
+        previous.next = node;
+
+        Thread receiver = waitingReceiver;
+        if (receiver != null) {
+            LockSupport.unpark(receiver);
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T message;
+        while ((message = poll()) == null) {
+            awaitMessages();
+        }
+        return message;
+    }
+
+    private void awaitMessages() throws InterruptedException {
+        waitingReceiver = Thread.currentThread();
+        try {
+            if (first.next == null) {
+                LockSupport.park(this);
+            }
+        } finally {
+            waitingReceiver = null;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Nullable
+    @Override
+    public T poll() {
+        Node<T> next = first.next;
+        if (next == null) {
+            return null;
+        }
+        T message = next.message;
+        next.message = null; // the node becomes the new stub, so don't hold on to the message
+        first = next;
+        return message;
+    }
+
+    @Override
+    public int drainTo(MessageSender<? super T> target, int maxMessages) {
+        int count = 0;
+        T message;
+        while (count < maxMessages && (message = poll()) != null) {
+            target.send(message);
+            count++;
+        }
+        return count;
+    }
+
+
+    @ThreadSafe
+    private static class Node<T> {
+        T message;
+        volatile Node<T> next;
+
+        Node(@Nullable T message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+/**
+ * Decides how an idle receiver waits for the next message. Trades CPU usage for latency.
+ *
+ * @see BlockingWaitStrategy
+ * @see SpinThenParkWaitStrategy
+ * @see YieldingWaitStrategy
+ * @see BusySpinWaitStrategy
+ */
+public interface WaitStrategy {
+
+    /**
+     * Returns the next message from the receiver, waiting for it if necessary.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    <T> T take(MessageReceiver<T> receiver) throws InterruptedException;
+}
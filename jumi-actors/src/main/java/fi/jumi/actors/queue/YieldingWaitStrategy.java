@@ -0,0 +1,39 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Polls for messages in a busy loop for a while, and after that calls {@link Thread#yield()} between polls. Low
+ * latency, and lets other threads run when the CPU cores are oversubscribed, but still uses CPU while idle.
+ */
+@Immutable
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private final int spinTries;
+
+    public YieldingWaitStrategy() {
+        this(100);
+    }
+
+    public YieldingWaitStrategy(int spinTries) {
+        this.spinTries = spinTries;
+    }
+
+    @Override
+    public <T> T take(MessageReceiver<T> receiver) throws InterruptedException {
+        T message;
+        for (int tries = 0; (message = receiver.poll()) == null; tries++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (tries >= spinTries) {
+                Thread.yield();
+            }
+        }
+        return message;
+    }
+}
@@ -7,10 +7,12 @@ package fi.jumi.actors;
 import fi.jumi.actors.eventizers.*;
 import fi.jumi.actors.eventizers.dynamic.DynamicEventizer;
 import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.MessageQueue;
 import org.junit.*;
 import org.junit.rules.ExpectedException;
-import org.mockito.InOrder;
+import org.mockito.*;
 
+import java.util.List;
 import java.util.concurrent.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -248,6 +250,25 @@ public abstract class ActorsContract<T extends Actors> extends ActorsContractHel
         assertEvents("unrelated message");
     }
 
+    @Test
+    public void actor_threads_can_use_custom_mailboxes() {
+        List<Runnable> sentTasks = new CopyOnWriteArrayList<>();
+        ActorThread actorThread = actors.startActorThread(() -> new MessageQueue<Runnable>() {
+            @Override
+            public void send(Runnable message) {
+                sentTasks.add(message);
+                super.send(message);
+            }
+        });
+        ActorRef<DummyListener> actor = actorThread.bindActor(DummyListener.class, new SpyDummyListener());
+
+        actor.tell().onSomething("event");
+        awaitEvents(1);
+
+        assertEvents("event");
+        assertThat("tasks sent through the custom mailbox", sentTasks.size(), is(1));
+    }
+
 
     // access to current actor thread
 
@@ -372,4 +393,40 @@ public abstract class ActorsContract<T extends Actors> extends ActorsContractHel
         inOrder.verify(messageListener).onProcessingStarted(rawActor, new OnSomethingEvent("parameter"));
         inOrder.verify(messageListener).onProcessingFinished();
     }
+
+    @Test
+    public void messages_are_traced_to_the_messages_which_caused_them() {
+        TracingMessageListener messageListener = mock(TracingMessageListener.class);
+        actors = newActors(defaultEventizerProvider, defaultFailureHandler, messageListener);
+        ActorRef<Runnable> downstream = actors.startActorThread().bindActor(Runnable.class, () -> logEvent("downstream"));
+        DummyListener upstreamRaw = parameter -> downstream.tell().run();
+        ActorRef<DummyListener> upstream = actors.startActorThread().bindActor(DummyListener.class, upstreamRaw);
+
+        upstream.tell().onSomething("parameter");
+        awaitEvents(1);
+        assertEvents("downstream");
+
+        ArgumentCaptor<TraceContext> sent = ArgumentCaptor.forClass(TraceContext.class);
+        ArgumentCaptor<TraceContext> started = ArgumentCaptor.forClass(TraceContext.class);
+        verify(messageListener, times(2)).onMessageSent(any(), sent.capture());
+        verify(messageListener, times(2)).onProcessingStarted(any(), any(), started.capture());
+        verify(messageListener, never()).onMessageSent(any());
+        verify(messageListener, never()).onProcessingStarted(any(), any());
+
+        TraceContext root = sent.getAllValues().get(0);
+        assertThat("root is root", root.isRoot(), is(true));
+        assertThat("root hop count", root.getHopCount(), is(0));
+        assertThat("root origin", root.getOriginActorClass(), is(nullValue()));
+        assertThat("root's root", root.getRootMessageId(), is(root.getMessageId()));
+
+        TraceContext caused = sent.getAllValues().get(1);
+        assertThat("caused's id", caused.getMessageId(), is(not(root.getMessageId())));
+        assertThat("caused's parent", caused.getParentMessageId(), is(root.getMessageId()));
+        assertThat("caused's root", caused.getRootMessageId(), is(root.getMessageId()));
+        assertThat("caused's hop count", caused.getHopCount(), is(1));
+        assertThat("caused's origin class", caused.getOriginActorClass(), is((Object) upstreamRaw.getClass()));
+        assertThat("caused's origin id", caused.getOriginActorId(), is(System.identityHashCode(upstreamRaw)));
+
+        assertThat("the same context when sent and when processed", started.getAllValues(), contains(root, caused));
+    }
 }
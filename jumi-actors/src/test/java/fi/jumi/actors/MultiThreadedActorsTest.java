@@ -1,4 +1,4 @@
-// Copyright © 2011-2012, Esko Luontola <www.orfjackal.net>
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
 // This software is released under the Apache License 2.0.
 // The license text is at http://www.apache.org/licenses/LICENSE-2.0
 
@@ -6,6 +6,7 @@ package fi.jumi.actors;
 
 import fi.jumi.actors.eventizers.EventizerProvider;
 import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
 import org.junit.*;
 
 import java.util.concurrent.*;
@@ -45,4 +46,71 @@ public class MultiThreadedActorsTest extends ActorsContract<MultiThreadedActors>
         assertThat(rawActor.thread, is(notNullValue()));
         assertThat(rawActor.thread, is(not(Thread.currentThread())));
     }
+
+    @Test
+    public void actor_threads_can_use_the_lock_free_mailbox() {
+        ActorThread actorThread = actors.startActorThread(UnboundedManyToOneMessageQueue::new);
+        ActorRef<DummyListener> actor = actorThread.bindActor(DummyListener.class, new SpyDummyListener());
+
+        actor.tell().onSomething("before");
+        actorThread.stop();
+        actor.tell().onSomething("after");
+
+        awaitEvents(1);
+        expectNoMoreEvents();
+        assertEvents("before");
+    }
+
+    @Test
+    public void the_wait_strategy_of_actor_threads_can_be_configured() {
+        MultiThreadedActors actors = new MultiThreadedActors(executor, new BusySpinWaitStrategy(),
+                defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+        ActorThread actorThread = actors.startActorThread();
+        ActorRef<DummyListener> actor = actorThread.bindActor(DummyListener.class, new SpyDummyListener());
+
+        actor.tell().onSomething("before");
+        actorThread.stop();
+        actor.tell().onSomething("after");
+
+        awaitEvents(1);
+        expectNoMoreEvents();
+        assertEvents("before");
+    }
+
+    @Test
+    public void individual_actor_threads_can_be_given_dedicated_threads() throws InterruptedException {
+        Thread[] dedicatedThread = new Thread[1];
+        ThreadFactory threadFactory = runnable -> dedicatedThread[0] = new Thread(runnable, "dedicated");
+        SpyDummyListener rawActor = new SpyDummyListener();
+
+        ActorThread actorThread = actors.startActorThread(threadFactory);
+        actorThread.bindActor(DummyListener.class, rawActor).tell().onSomething("event");
+        awaitEvents(1);
+
+        assertThat(rawActor.thread, is(dedicatedThread[0]));
+
+        actorThread.stop();
+        dedicatedThread[0].join(TIMEOUT);
+        assertThat("thread is alive", dedicatedThread[0].isAlive(), is(false));
+    }
+
+    @Test
+    public void the_thread_has_the_name_of_the_actor_thread_while_processing_its_messages() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("the-pool"));
+        try {
+            MultiThreadedActors actors = new MultiThreadedActors(executor, defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+            SpyDummyListener rawActor = new SpyDummyListener();
+
+            ActorThread actorThread = actors.startActorThread("the-actor-thread");
+            actorThread.bindActor(DummyListener.class, rawActor).tell().onSomething("event");
+            awaitEvents(1);
+            assertThat(rawActor.thread.getName(), is("the-actor-thread"));
+
+            actorThread.stop();
+            String nameAfterStopping = executor.submit(() -> Thread.currentThread().getName()).get(TIMEOUT, TimeUnit.MILLISECONDS);
+            assertThat(nameAfterStopping, is("the-pool-thread-1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,67 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors;
+
+import fi.jumi.actors.eventizers.EventizerProvider;
+import fi.jumi.actors.listeners.*;
+import org.junit.*;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MultiThreadedActorsWithThreadFactoryTest extends ActorsContract<MultiThreadedActors> {
+
+    private final List<Thread> createdThreads = new CopyOnWriteArrayList<>();
+    private final ThreadFactory threadFactory = runnable -> {
+        Thread thread = new Thread(runnable);
+        createdThreads.add(thread);
+        return thread;
+    };
+
+    @Override
+    protected MultiThreadedActors newActors(EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        return new MultiThreadedActors(threadFactory, eventizerProvider, failureHandler, messageListener);
+    }
+
+    @Override
+    protected void processEvents() {
+        // noop; background threads run automatically, rely on the timeouts in the contract tests for waiting
+    }
+
+    @After
+    public void stopThreads() {
+        for (Thread thread : createdThreads) {
+            thread.interrupt();
+        }
+    }
+
+
+    @Test
+    public void each_actor_thread_gets_its_own_thread_from_the_thread_factory() {
+        SpyDummyListener rawActor1 = new SpyDummyListener();
+        SpyDummyListener rawActor2 = new SpyDummyListener();
+
+        actors.startActorThread().bindActor(DummyListener.class, rawActor1).tell().onSomething("event 1");
+        actors.startActorThread().bindActor(DummyListener.class, rawActor2).tell().onSomething("event 2");
+        awaitEvents(2);
+
+        assertThat(createdThreads.size(), is(2));
+        assertThat(createdThreads, hasItems(rawActor1.thread, rawActor2.thread));
+    }
+
+    @Test
+    public void the_thread_finishes_when_the_actor_thread_is_stopped() throws InterruptedException {
+        ActorThread actorThread = actors.startActorThread();
+
+        actorThread.stop();
+
+        Thread thread = createdThreads.get(0);
+        thread.join(TIMEOUT);
+        assertThat("thread is alive", thread.isAlive(), is(false));
+    }
+}
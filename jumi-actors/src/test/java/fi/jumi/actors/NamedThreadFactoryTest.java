@@ -0,0 +1,42 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class NamedThreadFactoryTest {
+
+    @Test
+    public void gives_unique_names_to_threads() {
+        NamedThreadFactory factory1 = new NamedThreadFactory();
+        NamedThreadFactory factory2 = new NamedThreadFactory();
+
+        String name1 = factory1.newThread(() -> {
+        }).getName();
+        String name2 = factory1.newThread(() -> {
+        }).getName();
+        String name3 = factory2.newThread(() -> {
+        }).getName();
+
+        assertThat(name1, startsWith("jumi-actors-"));
+        assertThat(name1, endsWith("-thread-1"));
+        assertThat(name2, is(name1.replace("-thread-1", "-thread-2")));
+        assertThat(name3, endsWith("-thread-1"));
+        assertThat(name3, is(not(name1)));
+    }
+
+    @Test
+    public void the_threads_can_be_named_after_a_custom_pool_name() {
+        NamedThreadFactory factory = new NamedThreadFactory("the-pool");
+
+        assertThat(factory.newThread(() -> {
+        }).getName(), is("the-pool-thread-1"));
+        assertThat(factory.newThread(() -> {
+        }).getName(), is("the-pool-thread-2"));
+    }
+}
@@ -0,0 +1,198 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors;
+
+import fi.jumi.actors.eventizers.EventizerProvider;
+import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.metrics.MetricsMailboxFactory;
+import fi.jumi.actors.queue.*;
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class PooledActorsTest extends ActorsContract<PooledActors> {
+
+    // A single pool thread, so that the contract's guarantee of actor threads running in the same thread holds
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Override
+    protected PooledActors newActors(EventizerProvider eventizerProvider, FailureHandler failureHandler, MessageListener messageListener) {
+        return new PooledActors(executor, eventizerProvider, failureHandler, messageListener);
+    }
+
+    @Override
+    protected void processEvents() {
+        // noop; background threads run automatically, rely on the timeouts in the contract tests for waiting
+    }
+
+    @After
+    public void stopExecutor() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+
+    @Test
+    public void many_actor_threads_share_the_threads_of_the_pool() {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            PooledActors actors = new PooledActors(pool, defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+            Set<Thread> usedThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            CountDownLatch processed = new CountDownLatch(1000);
+
+            for (int i = 0; i < 1000; i++) {
+                actors.startActorThread().bindActor(Runnable.class, () -> {
+                    usedThreads.add(Thread.currentThread());
+                    processed.countDown();
+                }).tell().run();
+            }
+
+            assertThat("all processed", await(processed), is(true));
+            assertThat(usedThreads.size(), is(lessThanOrEqualTo(4)));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void messages_of_one_actor_thread_are_never_processed_concurrently() {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            PooledActors actors = new PooledActors(pool, 1, defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+            AtomicInteger concurrentlyProcessing = new AtomicInteger();
+            AtomicBoolean overlapped = new AtomicBoolean(false);
+            CountDownLatch processed = new CountDownLatch(1000);
+            ActorRef<Runnable> actor = actors.startActorThread().bindActor(Runnable.class, () -> {
+                if (concurrentlyProcessing.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                Thread.yield();
+                concurrentlyProcessing.decrementAndGet();
+                processed.countDown();
+            });
+
+            for (int i = 0; i < 1000; i++) {
+                actor.tell().run();
+            }
+
+            assertThat("all processed", await(processed), is(true));
+            assertThat("processed concurrently", overlapped.get(), is(false));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void an_actor_thread_yields_its_thread_after_processing_its_message_quota() {
+        PooledActors actors = new PooledActors(executor, 2, defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch processed = new CountDownLatch(6);
+        ActorRef<DummyListener> actor1 = actors.startActorThread().bindActor(DummyListener.class, parameter -> {
+            events.add(parameter);
+            processed.countDown();
+        });
+        ActorRef<DummyListener> actor2 = actors.startActorThread().bindActor(DummyListener.class, parameter -> {
+            events.add(parameter);
+            processed.countDown();
+        });
+
+        // keep the only pool thread busy until all messages have been sent
+        CountDownLatch allSent = new CountDownLatch(1);
+        executor.execute(() -> await(allSent));
+        for (int i = 1; i <= 3; i++) {
+            actor1.tell().onSomething("a" + i);
+            actor2.tell().onSomething("b" + i);
+        }
+        allSent.countDown();
+
+        assertThat("all processed", await(processed), is(true));
+        assertThat(events, is(Arrays.asList("a1", "a2", "b1", "b2", "a3", "b3")));
+    }
+
+    @Test
+    public void the_thread_has_the_name_of_the_actor_thread_while_processing_its_messages() throws Exception {
+        BlockingQueue<String> nameWhileProcessing = new ArrayBlockingQueue<>(1);
+
+        actors.startActorThread("the-actor-thread").bindActor(Runnable.class, () -> {
+            nameWhileProcessing.add(Thread.currentThread().getName());
+        }).tell().run();
+        assertThat(nameWhileProcessing.poll(TIMEOUT, TimeUnit.MILLISECONDS), is("the-actor-thread"));
+
+        String nameAfterwards = executor.submit(() -> Thread.currentThread().getName()).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertThat(nameAfterwards, is(not("the-actor-thread")));
+    }
+
+    @Test
+    public void if_the_executor_rejects_the_actor_thread_then_the_next_message_schedules_it_again() throws InterruptedException {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        Executor rejectsOnce = command -> {
+            if (reject.getAndSet(false)) {
+                throw new RejectedExecutionException("rejected");
+            }
+            executor.execute(command);
+        };
+        PooledActors actors = new PooledActors(rejectsOnce, defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        DummyListener actor = actors.startActorThread().bindActor(DummyListener.class, received::add).tell();
+
+        try {
+            actor.onSomething("first");
+            fail("should have thrown an exception");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        actor.onSomething("second");
+
+        assertThat(received.poll(TIMEOUT, TimeUnit.MILLISECONDS), is("first"));
+        assertThat(received.poll(TIMEOUT, TimeUnit.MILLISECONDS), is("second"));
+    }
+
+    @Test
+    public void message_quota_must_be_positive() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("message quota must be at least 1, but was 0");
+
+        new PooledActors(executor, 0, defaultEventizerProvider, defaultFailureHandler, defaultMessageListener);
+    }
+
+    @Test
+    public void mailboxes_which_tell_senders_apart_by_their_thread_are_rejected() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("BoundedBatchingManyToOneMessageQueue cannot be used with PooledActors");
+
+        actors.startActorThread(() -> new BoundedBatchingManyToOneMessageQueue<>(10));
+    }
+
+    @Test
+    public void ring_buffer_mailboxes_are_rejected_because_they_tell_the_receiver_apart_by_its_thread() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("RingBufferMessageQueue cannot be used with PooledActors");
+
+        actors.startActorThread(() -> new RingBufferMessageQueue<>(16));
+    }
+
+    @Test
+    public void such_mailboxes_are_rejected_also_when_they_are_measured() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("cannot be used with PooledActors");
+
+        actors.startActorThread(new MetricsMailboxFactory(() -> new RingBufferMessageQueue<>(16)));
+    }
+
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
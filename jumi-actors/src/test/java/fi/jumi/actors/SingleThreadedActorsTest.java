@@ -4,9 +4,11 @@
 
 package fi.jumi.actors;
 
-import fi.jumi.actors.eventizers.EventizerProvider;
-import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.eventizers.*;
+import fi.jumi.actors.eventizers.bytecode.BytecodeEventizerProvider;
+import fi.jumi.actors.eventizers.dynamic.*;
 import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
 import org.junit.Test;
 import org.mockito.Matchers;
 
@@ -59,6 +61,116 @@ public class SingleThreadedActorsTest extends ActorsContract<SingleThreadedActor
         actors.processEventsUntilIdle();
     }
 
+    @Test
+    public void events_which_carry_their_recipient_are_put_into_the_mailbox_without_an_envelope() {
+        List<Object> sentMessages = new ArrayList<>();
+        List<Runnable> mailboxContents = new ArrayList<>();
+        SingleThreadedActors actors = new SingleThreadedActors(new DynamicEventizerProvider(), defaultFailureHandler, new NullMessageListener() {
+            @Override
+            public void onMessageSent(Object message) {
+                sentMessages.add(message);
+            }
+        });
+        List<String> received = new ArrayList<>();
+        ActorRef<DummyListener> actor = actors.startActorThread(() -> new MessageQueue<Runnable>() {
+            @Override
+            public void send(Runnable message) {
+                mailboxContents.add(message);
+                super.send(message);
+            }
+        }).bindActor(DummyListener.class, received::add);
+
+        actor.tell().onSomething("message");
+        actors.processEventsUntilIdle();
+
+        assertThat(received, is(Arrays.asList("message")));
+        assertThat(mailboxContents.get(0), is(sameInstance(sentMessages.get(0))));
+    }
+
+    @Test
+    public void the_same_event_may_be_sent_to_many_actors_before_it_is_processed() throws Exception {
+        List<MessageSender<Event<DummyListener>>> actorSenders = new ArrayList<>();
+        EventizerProvider capturingProvider = new EventizerProvider() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> Eventizer<T> getEventizerForType(Class<T> type) {
+                Eventizer<T> eventizer = defaultEventizerProvider.getEventizerForType(type);
+                return new Eventizer<T>() {
+                    @Override
+                    public Class<T> getType() {
+                        return eventizer.getType();
+                    }
+
+                    @Override
+                    public T newFrontend(MessageSender<Event<T>> target) {
+                        actorSenders.add((MessageSender) target);
+                        return eventizer.newFrontend(target);
+                    }
+
+                    @Override
+                    public MessageSender<Event<T>> newBackend(T target) {
+                        return eventizer.newBackend(target);
+                    }
+                };
+            }
+        };
+        SingleThreadedActors actors = new SingleThreadedActors(capturingProvider, defaultFailureHandler, defaultMessageListener);
+        List<String> receivedByFirst = new ArrayList<>();
+        List<String> receivedBySecond = new ArrayList<>();
+        actors.startActorThread().bindActor(DummyListener.class, receivedByFirst::add);
+        actors.startActorThread().bindActor(DummyListener.class, receivedBySecond::add);
+        DynamicEvent<DummyListener> event = new DynamicEvent<>(
+                DummyListener.class.getMethod("onSomething", String.class), new Object[]{"message"});
+
+        actorSenders.get(0).send(event);
+        actorSenders.get(1).send(event);
+        actors.processEventsUntilIdle();
+
+        assertThat(receivedByFirst, is(Arrays.asList("message")));
+        assertThat(receivedBySecond, is(Arrays.asList("message")));
+    }
+
+    @Test
+    public void recyclable_events_are_reused_after_they_have_been_processed() {
+        List<Object> sentMessages = new ArrayList<>();
+        SingleThreadedActors actors = new SingleThreadedActors(new BytecodeEventizerProvider(true), defaultFailureHandler, new NullMessageListener() {
+            @Override
+            public void onMessageSent(Object message) {
+                sentMessages.add(message);
+            }
+        });
+        List<String> received = new ArrayList<>();
+        ActorRef<DummyListener> actor = actors.startActorThread().bindActor(DummyListener.class, received::add);
+
+        actor.tell().onSomething("first");
+        actors.processEventsUntilIdle();
+        actor.tell().onSomething("second");
+        actors.processEventsUntilIdle();
+
+        assertThat(received, is(Arrays.asList("first", "second")));
+        assertThat(sentMessages.get(1), is(sameInstance(sentMessages.get(0))));
+    }
+
+    @Test
+    public void recyclable_events_are_not_reused_before_they_have_been_processed() {
+        List<Object> sentMessages = new ArrayList<>();
+        SingleThreadedActors actors = new SingleThreadedActors(new BytecodeEventizerProvider(true), defaultFailureHandler, new NullMessageListener() {
+            @Override
+            public void onMessageSent(Object message) {
+                sentMessages.add(message);
+            }
+        });
+        List<String> received = new ArrayList<>();
+        ActorRef<DummyListener> actor = actors.startActorThread().bindActor(DummyListener.class, received::add);
+
+        actor.tell().onSomething("first");
+        actor.tell().onSomething("second");
+        actors.processEventsUntilIdle();
+
+        assertThat(received, is(Arrays.asList("first", "second")));
+        assertThat(sentMessages.get(1), is(not(sameInstance(sentMessages.get(0)))));
+    }
+
     @Test
     public void provides_an_asynchronous_executor() {
         final StringBuilder spy = new StringBuilder();
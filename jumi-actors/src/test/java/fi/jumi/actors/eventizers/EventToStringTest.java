@@ -6,6 +6,8 @@ package fi.jumi.actors.eventizers;
 
 import org.junit.Test;
 
+import java.io.*;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -25,6 +27,14 @@ public class EventToStringTest {
         assertThat(EventToString.format("TheClass", "theMethod", (Object) null), is("TheClass.theMethod(null)"));
     }
 
+    @Test
+    public void shows_primitive_wrappers_like_primitives() {
+        assertThat(EventToString.format("TheClass", "theMethod", 1, 2L, false, 'x', 1.5),
+                is("TheClass.theMethod(1, 2, false, x, 1.5)"));
+        assertThat(EventToString.format("TheClass", "theMethod", Integer.MIN_VALUE, Long.MIN_VALUE),
+                is("TheClass.theMethod(-2147483648, -9223372036854775808)"));
+    }
+
     @Test
     public void quotes_string_arguments() {
         assertThat(EventToString.format("TheClass", "theMethod", "foo"), is("TheClass.theMethod(\"foo\")"));
@@ -52,6 +62,58 @@ public class EventToStringTest {
     public void escapes_unmappable_characters_for_the_current_charset() {
         assertThat(escapeSpecialChars("åäö", Charset.forName("ISO-8859-1")), is("åäö"));
         assertThat(escapeSpecialChars("åäö", Charset.forName("US-ASCII")), is("\\u00e5\\u00e4\\u00f6"));
+        assertThat(escapeSpecialChars("\u20ac", Charset.forName("US-ASCII")), is("\\u20ac"));
+    }
+
+
+    // formatting without creating garbage
+
+    @Test
+    public void can_append_the_result_to_a_StringBuilder() throws IOException {
+        StringBuilder out = new StringBuilder("before ");
+
+        EventToString.formatTo(out, "TheClass", "theMethod", "foo");
+
+        assertThat(out.toString(), is("before TheClass.theMethod(\"foo\")"));
+    }
+
+    @Test
+    public void can_append_the_result_to_a_CharBuffer() throws IOException {
+        CharBuffer out = CharBuffer.allocate(100);
+
+        EventToString.formatTo(out, "TheClass", "theMethod", "foo");
+
+        out.flip();
+        assertThat(out.toString(), is("TheClass.theMethod(\"foo\")"));
+    }
+
+    @Test
+    public void can_append_the_result_to_any_Appendable() throws IOException {
+        StringWriter out = new StringWriter();
+
+        EventToString.formatTo(out, "TheClass", "theMethod", "foo");
+
+        assertThat(out.toString(), is("TheClass.theMethod(\"foo\")"));
+    }
+
+    @Test
+    public void the_reused_formatter_starts_from_empty_every_time() {
+        EventToString.format("TheClass", "first", 1);
+
+        assertThat(EventToString.format("TheClass", "second", 2), is("TheClass.second(2)"));
+    }
+
+    @Test
+    public void arguments_can_format_other_events_in_their_toString() {
+        Object nested = new Object() {
+            @Override
+            public String toString() {
+                return EventToString.format("Inner", "method", "x");
+            }
+        };
+
+        assertThat(EventToString.format("Outer", "method", nested, "y"),
+                is("Outer.method(Inner.method(\"x\"), \"y\")"));
     }
 
 
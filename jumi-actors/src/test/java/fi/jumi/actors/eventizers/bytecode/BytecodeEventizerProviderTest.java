@@ -0,0 +1,60 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.Promise;
+import fi.jumi.actors.eventizers.Eventizer;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizer;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BytecodeEventizerProviderTest {
+
+    private final BytecodeEventizerProvider provider = new BytecodeEventizerProvider();
+
+    @Test
+    public void generates_bytecode_for_supported_listener_interfaces() {
+        Eventizer<PublicListener> eventizer = provider.getEventizerForType(PublicListener.class);
+
+        assertThat(eventizer).isInstanceOf(BytecodeEventizer.class);
+        assertThat(eventizer.getType()).isEqualTo(PublicListener.class);
+    }
+
+    @Test
+    public void falls_back_to_reflection_for_non_public_listener_interfaces() {
+        Eventizer<PrivateListener> eventizer = provider.getEventizerForType(PrivateListener.class);
+
+        assertThat(eventizer).isInstanceOf(DynamicEventizer.class);
+    }
+
+    @Test
+    public void generates_bytecode_for_listener_interfaces_which_return_promises() {
+        Eventizer<PromiseListener> eventizer = provider.getEventizerForType(PromiseListener.class);
+
+        assertThat(eventizer).isInstanceOf(BytecodeEventizer.class);
+    }
+
+    @Test
+    public void caches_the_eventizer_instances() {
+        Eventizer<PublicListener> eventizer1 = provider.getEventizerForType(PublicListener.class);
+        Eventizer<PublicListener> eventizer2 = provider.getEventizerForType(PublicListener.class);
+
+        assertThat(eventizer1).isSameAs(eventizer2);
+    }
+
+
+    public interface PublicListener {
+        void onSomething(String parameter);
+    }
+
+    private interface PrivateListener {
+        void onSomething(String parameter);
+    }
+
+    public interface PromiseListener {
+        Promise<String> onSomething(String parameter);
+    }
+}
@@ -0,0 +1,277 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.bytecode;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.eventizers.*;
+import fi.jumi.actors.queue.*;
+import org.junit.*;
+import org.junit.rules.ExpectedException;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class BytecodeEventizerTest {
+
+    private final BytecodeEventizer<DummyListener> eventizer = new BytecodeEventizer<>(DummyListener.class);
+    private final MessageQueue<Event<DummyListener>> queue = new MessageQueue<>();
+    private final DummyListener frontend = eventizer.newFrontend(queue);
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void method_calls_are_converted_into_event_objects() {
+        frontend.onSomething("param");
+
+        assertThat(queue.poll(), is(notNullValue()));
+    }
+
+    @Test
+    public void event_objects_are_converted_back_into_method_calls() {
+        DummyListener target = mock(DummyListener.class);
+        MessageSender<Event<DummyListener>> backend = eventizer.newBackend(target);
+
+        frontend.onSomething("param");
+        backend.send(queue.poll());
+
+        verify(target).onSomething("param");
+    }
+
+    @Test
+    public void supports_all_parameter_types() {
+        DummyListener target = mock(DummyListener.class);
+        MessageSender<Event<DummyListener>> backend = eventizer.newBackend(target);
+        Object object = new Object();
+        String[] array = {"a", "b"};
+
+        frontend.allTypes(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.0f, 6.0, object, array);
+        backend.send(queue.poll());
+
+        verify(target).allTypes(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.0f, 6.0, object, array);
+    }
+
+    @Test
+    public void supports_overloaded_methods() {
+        DummyListener target = mock(DummyListener.class);
+        MessageSender<Event<DummyListener>> backend = eventizer.newBackend(target);
+
+        frontend.multipleArguments(1, 2);
+        frontend.multipleArguments("one", "two");
+        backend.send(queue.poll());
+        backend.send(queue.poll());
+
+        verify(target).multipleArguments(1, 2);
+        verify(target).multipleArguments("one", "two");
+    }
+
+    @Test
+    public void events_are_concrete_classes_which_store_the_arguments_in_typed_fields() {
+        frontend.multipleArguments(1, 2);
+        Class<?> eventClass = queue.poll().getClass();
+
+        assertThat(Proxy.isProxyClass(frontend.getClass()), is(false));
+        assertThat(eventClass.getSuperclass(), is(equalTo((Object) BytecodeEvent.class)));
+        assertThat(eventClass.getSimpleName(), is("MultipleArgumentsEvent"));
+        for (Field field : eventClass.getDeclaredFields()) {
+            assertThat(field.toString(), field.getType(), is(equalTo((Object) int.class)));
+            assertThat(field.toString(), Modifier.isFinal(field.getModifiers()), is(true));
+        }
+    }
+
+    @Test
+    public void primitive_arguments_are_not_boxed() {
+        frontend.allTypes(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.0f, 6.0, null, null);
+        Class<?> eventClass = queue.poll().getClass();
+
+        int primitiveFields = 0;
+        for (Field field : eventClass.getDeclaredFields()) {
+            if (field.getType().isPrimitive()) {
+                primitiveFields++;
+            }
+        }
+        assertThat(primitiveFields, is(8));
+    }
+
+    @Test
+    public void methods_which_return_promises_are_resolved_with_the_return_value_of_the_target() throws Exception {
+        BytecodeEventizer<PromiseListener> eventizer = new BytecodeEventizer<>(PromiseListener.class);
+        MessageQueue<Event<PromiseListener>> queue = new MessageQueue<>();
+        PromiseListener frontend = eventizer.newFrontend(queue);
+        MessageSender<Event<PromiseListener>> backend = eventizer.newBackend(
+                (PromiseListener) parameter -> Promise.of("result of " + parameter));
+
+        Promise<String> promise = frontend.returnsPromise(42L);
+        assertThat("done before firing", promise.isDone(), is(false));
+        backend.send(queue.poll());
+
+        assertThat(promise.get(0, TimeUnit.MILLISECONDS), is("result of 42"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void recycled_events_are_reused_for_the_next_message_sent_from_the_same_thread() {
+        BytecodeEventizer<DummyListener> eventizer = new BytecodeEventizer<>(DummyListener.class, true);
+        DummyListener frontend = eventizer.newFrontend(queue);
+
+        frontend.onSomething("first");
+        Event<DummyListener> first = queue.poll();
+        ((RecyclableEvent<DummyListener>) first).recycle();
+        frontend.onSomething("second");
+        Event<DummyListener> second = queue.poll();
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.toString(), is("DummyListener.onSomething(\"second\")"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void recycled_events_do_not_keep_their_arguments_alive() {
+        BytecodeEventizer<DummyListener> eventizer = new BytecodeEventizer<>(DummyListener.class, true);
+        DummyListener frontend = eventizer.newFrontend(queue);
+
+        frontend.multipleArguments("one", "two");
+        Event<DummyListener> event = queue.poll();
+        ((RecyclableEvent<DummyListener>) event).recycle();
+
+        assertThat(event.toString(), is("DummyListener.multipleArguments(null, null)"));
+    }
+
+    @Test
+    public void only_the_classes_of_recyclable_events_have_the_pooling_methods() {
+        BytecodeEventizer<DummyListener> recyclingEventizer = new BytecodeEventizer<>(DummyListener.class, true);
+        recyclingEventizer.newFrontend(queue).onSomething("recyclable");
+        frontend.onSomething("not recyclable");
+
+        assertThat(queue.poll().getClass().getSuperclass(), is(equalTo((Object) RecyclableBytecodeEvent.class)));
+        assertThat(queue.poll().getClass().getSuperclass(), is(equalTo((Object) BytecodeEvent.class)));
+    }
+
+    @Test
+    public void events_are_not_recyclable_by_default() {
+        frontend.onSomething("param");
+
+        assertThat(queue.poll(), is(not(instanceOf(RecyclableEvent.class))));
+    }
+
+    @Test
+    public void events_of_methods_which_return_promises_are_never_recyclable() {
+        BytecodeEventizer<PromiseListener> eventizer = new BytecodeEventizer<>(PromiseListener.class, true);
+        MessageQueue<Event<PromiseListener>> queue = new MessageQueue<>();
+
+        eventizer.newFrontend(queue).returnsPromise(1L);
+
+        assertThat(queue.poll(), is(not(instanceOf(RecyclableEvent.class))));
+    }
+
+    @Test
+    @SuppressWarnings({"ResultOfMethodCallIgnored", "ObjectEqualsNull"})
+    public void only_methods_of_the_actor_interface_are_converted_into_events() {
+        frontend.toString();
+        frontend.equals(null);
+        frontend.hashCode();
+
+        assertThat(queue.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void event_objects_are_serializable() throws Exception {
+        DummyListener target = mock(DummyListener.class);
+        MessageSender<Event<DummyListener>> backend = eventizer.newBackend(target);
+
+        frontend.multipleArguments(1, 2);
+        Event<DummyListener> original = queue.poll();
+        Event<DummyListener> deserialized = deserialize(serialize(original));
+
+        backend.send(deserialized);
+        verify(target).multipleArguments(1, 2);
+    }
+
+    @Test
+    public void the_events_have_descriptive_toString_methods() {
+        frontend.onSomething("param");
+        assertThat(queue.poll().toString(), is("DummyListener.onSomething(\"param\")"));
+
+        frontend.multipleArguments(1, 2);
+        assertThat(queue.poll().toString(), is("DummyListener.multipleArguments(1, 2)"));
+
+        frontend.zeroArguments();
+        assertThat(queue.poll().toString(), is("DummyListener.zeroArguments()"));
+    }
+
+    @Test
+    public void rejects_invalid_actor_interfaces() {
+        thrown.expect(IllegalArgumentException.class);
+
+        new BytecodeEventizer<>(ActorInterfaceContractsTest.INVALID_ACTOR_INTERFACE);
+    }
+
+    @Test
+    public void rejects_actor_interfaces_which_are_not_public() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("bytecode can be generated only for public actor interfaces");
+
+        new BytecodeEventizer<>(PrivateListener.class);
+    }
+
+    @Test
+    public void rejects_actor_interfaces_whose_parameter_types_are_not_public() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("bytecode can be generated only for public actor interfaces");
+
+        new BytecodeEventizer<>(PrivateParameterListener.class);
+    }
+
+
+    // helper methods
+
+    private static ByteArrayOutputStream serialize(Event<DummyListener> original) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(original);
+        out.close();
+        return buffer;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private static Event<DummyListener> deserialize(ByteArrayOutputStream buffer) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        return (Event<DummyListener>) in.readObject();
+    }
+
+    // test data
+
+    public interface DummyListener {
+        void onSomething(String parameter);
+
+        void multipleArguments(int one, int two);
+
+        void multipleArguments(String one, String two);
+
+        void zeroArguments();
+
+        void allTypes(boolean z, byte b, char c, short s, int i, long j, float f, double d, Object o, String[] array);
+    }
+
+    public interface PromiseListener {
+        Promise<String> returnsPromise(long parameter);
+    }
+
+    private interface PrivateListener {
+        void onSomething(String parameter);
+    }
+
+    public interface PrivateParameterListener {
+        void onSomething(PrivateParameter parameter);
+    }
+
+    private static class PrivateParameter {
+    }
+}
@@ -0,0 +1,46 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.eventizers.dynamic;
+
+import fi.jumi.actors.Promise;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DynamicMethodCacheTest {
+
+    private final DynamicMethodCache cache = new DynamicMethodCache();
+
+    @Test
+    public void the_metadata_of_a_method_is_calculated_only_once() throws Exception {
+        Method method = DummyListener.class.getMethod("onSomething");
+
+        assertThat(cache.get(method), is(sameInstance(cache.get(method))));
+    }
+
+    @Test
+    public void each_method_has_its_own_metadata() throws Exception {
+        DynamicMethod onSomething = cache.get(DummyListener.class.getMethod("onSomething"));
+        DynamicMethod returnsPromise = cache.get(DummyListener.class.getMethod("returnsPromise"));
+        DynamicMethod toString = cache.get(Object.class.getMethod("toString"));
+
+        assertThat(onSomething.returnsPromise, is(false));
+        assertThat(onSomething.isObjectMethod, is(false));
+        assertThat(returnsPromise.returnsPromise, is(true));
+        assertThat(toString.isObjectMethod, is(true));
+        assertThat(onSomething.actorName, is("DummyListener"));
+    }
+
+
+    private interface DummyListener {
+
+        void onSomething();
+
+        Promise<String> returnsPromise();
+    }
+}
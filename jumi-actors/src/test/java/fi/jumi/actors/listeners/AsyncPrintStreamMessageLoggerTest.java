@@ -0,0 +1,182 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import org.junit.*;
+import org.junit.rules.ExpectedException;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static fi.jumi.actors.Matchers.containsLineWithWords;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AsyncPrintStreamMessageLoggerTest {
+
+    private static final long TIMEOUT = 1000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private AsyncPrintStreamMessageLogger logger = new AsyncPrintStreamMessageLogger(new PrintStream(output));
+
+    @After
+    public void closeLogger() {
+        logger.close();
+    }
+
+
+    @Test
+    public void processing_messages_logs_both_the_actor_and_the_message() {
+        logger.onProcessingStarted("actor1", "message1");
+        logger.close();
+
+        assertThat(output.toString(), containsLineWithWords("actor1 <-", "message1"));
+    }
+
+    @Test
+    public void sending_messages_logs_the_current_actor_and_thread() {
+        logger.onProcessingStarted("actor1", "unimportant message");
+        logger.onMessageSent("message1");
+        logger.onProcessingFinished();
+        logger.onMessageSent("message2");
+        logger.close();
+
+        assertThat(output.toString(), containsLineWithWords("actor1 ->", "message1"));
+        assertThat(output.toString(), containsLineWithWords("<external> ->", "message2"));
+        assertThat(output.toString(), containsString("[" + Thread.currentThread().getName() + "]"));
+    }
+
+    @Test
+    public void the_actor_and_the_message_are_converted_to_strings_in_the_thread_which_logs_them() {
+        List<Thread> convertedIn = new CopyOnWriteArrayList<>();
+        Object actor = new ToStringRecorder("actor1", convertedIn);
+        Object message = new ToStringRecorder("message1", convertedIn);
+
+        logger.onProcessingStarted(actor, message);
+        logger.onMessageSent(message);
+        logger.onProcessingFinished();
+        logger.close();
+
+        assertThat(output.toString(), containsLineWithWords("actor1 <-", "message1"));
+        assertThat(output.toString(), containsLineWithWords("actor1 ->", "message1"));
+        assertThat(convertedIn, everyItem(is(Thread.currentThread())));
+    }
+
+    @Test
+    public void the_messages_are_printed_in_the_order_they_were_logged() {
+        for (int i = 0; i < 100; i++) {
+            logger.onMessageSent("message" + i);
+        }
+        logger.close();
+
+        String[] lines = output.toString().split("\\r?\\n");
+        assertThat(lines.length, is(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(lines[i], endsWith(" message" + i));
+        }
+    }
+
+    @Test
+    public void when_the_output_is_slow_then_messages_are_dropped_instead_of_blocking_the_sender() throws InterruptedException {
+        BlockingOutputStream slowOutput = new BlockingOutputStream();
+        logger.close();
+        logger = new AsyncPrintStreamMessageLogger(new PrintStream(slowOutput), 2, Thread::new);
+        logger.onMessageSent("message1");
+        slowOutput.awaitWriting();
+
+        logger.onMessageSent("message2");
+        logger.onMessageSent("message3");
+        logger.onMessageSent("message4");
+        logger.onMessageSent("message5");
+
+        assertThat(logger.getDroppedMessages(), is(2L));
+        slowOutput.unblock();
+        logger.close();
+        String output = slowOutput.toString();
+        assertThat(output, containsLineWithWords("message1"));
+        assertThat(output, containsLineWithWords("2 messages dropped"));
+        assertThat(output, containsLineWithWords("message3"));
+        assertThat(output, not(containsString("message5")));
+    }
+
+    @Test
+    public void messages_logged_after_closing_are_ignored() {
+        logger.close();
+
+        logger.onMessageSent("message1");
+
+        assertThat(output.toString(), is(""));
+        assertThat(logger.getDroppedMessages(), is(0L));
+    }
+
+    @Test
+    public void the_background_thread_is_started_when_the_first_message_is_logged() {
+        List<Thread> threads = new ArrayList<>();
+        logger.close();
+        logger = new AsyncPrintStreamMessageLogger(new PrintStream(output), 10, runnable -> {
+            Thread thread = new Thread(runnable);
+            threads.add(thread);
+            return thread;
+        });
+        assertThat("after constructing", threads.get(0).getState(), is(Thread.State.NEW));
+
+        logger.onMessageSent("message1");
+
+        assertThat("after logging", threads.get(0).getState(), is(not(Thread.State.NEW)));
+    }
+
+    @Test
+    public void capacity_must_be_at_least_1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("capacity must be at least 1, but was 0");
+
+        new AsyncPrintStreamMessageLogger(new PrintStream(output), 0, Thread::new);
+    }
+
+
+    private static class BlockingOutputStream extends ByteArrayOutputStream {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch unblocked = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writing.countDown();
+            try {
+                unblocked.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            super.write(b, off, len);
+        }
+
+        void awaitWriting() throws InterruptedException {
+            assertThat("started writing", writing.await(TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+        }
+
+        void unblock() {
+            unblocked.countDown();
+        }
+    }
+
+    private static class ToStringRecorder {
+        private final String name;
+        private final List<Thread> convertedIn;
+
+        ToStringRecorder(String name, List<Thread> convertedIn) {
+            this.name = name;
+            this.convertedIn = convertedIn;
+        }
+
+        @Override
+        public String toString() {
+            convertedIn.add(Thread.currentThread());
+            return name;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import fi.jumi.actors.ActorsContractHelpers.DummyListener;
+import fi.jumi.actors.eventizers.dynamic.DynamicEvent;
+import org.junit.*;
+import org.junit.rules.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static fi.jumi.actors.Matchers.containsLineWithWords;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MappedTraceMessageListenerTest {
+
+    @Rule
+    public final TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private File traceFile;
+    private MappedTraceMessageListener listener;
+
+    @Before
+    public void setUp() throws IOException {
+        traceFile = new File(tempDir.getRoot(), "trace.bin");
+        listener = new MappedTraceMessageListener(traceFile, 1000);
+    }
+
+    @After
+    public void closeListener() throws IOException {
+        listener.close();
+    }
+
+
+    @Test
+    public void processing_messages_records_both_the_actor_and_the_message() throws IOException {
+        listener.onProcessingStarted("actor1", "message1");
+
+        assertThat(decode(), containsLineWithWords("java.lang.String@" + Integer.toHexString(System.identityHashCode("actor1")), "<-", "java.lang.String"));
+    }
+
+    @Test
+    public void sending_messages_outside_an_actor_records_only_the_message() throws IOException {
+        listener.onMessageSent("message1");
+
+        assertThat(decode(), containsLineWithWords("<external> ->", "java.lang.String"));
+    }
+
+    @Test
+    public void sending_messages_from_an_actor_records_both_the_actor_and_the_message() throws IOException {
+        listener.onProcessingStarted(new DummyActor(), "unimportant message");
+
+        listener.onMessageSent("message1");
+
+        assertThat(decode(), containsLineWithWords(DummyActor.class.getName() + "@", "->", "java.lang.String"));
+    }
+
+    @Test
+    public void the_actor_is_forgotten_after_the_message_has_been_processed() throws IOException {
+        listener.onProcessingStarted(new DummyActor(), "message1");
+        listener.onProcessingFinished();
+
+        listener.onMessageSent("message2");
+
+        assertThat(decode(), containsLineWithWords("<external> ->", "java.lang.String"));
+    }
+
+    @Test
+    public void dynamic_events_are_shown_as_their_actor_method() throws Exception {
+        DynamicEvent<DummyListener> event = new DynamicEvent<>(DummyListener.class.getMethod("onSomething", String.class), new Object[]{"foo"});
+
+        listener.onMessageSent(event);
+
+        assertThat(decode(), containsLineWithWords("<external> ->", "DummyListener.onSomething"));
+    }
+
+    @Test
+    public void the_decoded_lines_have_the_same_format_as_PrintStreamMessageLogger() throws IOException {
+        String message = "message1";
+
+        listener.onMessageSent(message);
+
+        String output = decode();
+        assertThat(output, containsString("[" + Thread.currentThread().getName() + "]"));
+        assertThat(output, containsString(String.format("0x%08x", System.identityHashCode(message))));
+        assertThat(output).matches("(?s)\\[ *\\d+\\.\\d{6}\\] \\[.*\\] <external> -> 0x[0-9a-f]{8} java.lang.String\\s*");
+    }
+
+    @Test
+    public void timestamps_are_shown_as_seconds_since_start_with_microsecond_precision() throws IOException {
+        listener.close();
+        final Queue<Long> fakeNanoTime = new LinkedList<>();
+        fakeNanoTime.add(1000000L);
+        fakeNanoTime.add(1234567L);
+        listener = new MappedTraceMessageListener(traceFile, 1000) {
+            @Override
+            protected long nanoTime() {
+                return fakeNanoTime.poll();
+            }
+        };
+
+        listener.onMessageSent("message1");
+
+        assertThat(decode(), containsString("[   0.000235]"));
+    }
+
+    @Test
+    public void keeps_only_the_latest_events_when_the_file_is_full() throws IOException {
+        listener.close();
+        listener = new MappedTraceMessageListener(traceFile, MappedTraceMessageListener.RECORDS_PER_CHUNK);
+
+        for (int i = 0; i < MappedTraceMessageListener.RECORDS_PER_CHUNK + 4; i++) {
+            listener.onMessageSent(new Object());
+        }
+
+        assertThat(decode().split("\n").length, is(4));
+    }
+
+    @Test
+    public void a_chunk_which_another_thread_is_still_filling_is_not_overwritten() throws Exception {
+        listener.close();
+        listener = new MappedTraceMessageListener(traceFile, 2 * MappedTraceMessageListener.RECORDS_PER_CHUNK);
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread idleThread = new Thread(() -> {
+            listener.onMessageSent(new DummyActor());
+            recorded.countDown();
+            await(finished); // keeps owning its chunk while idle
+        });
+        idleThread.start();
+        assertThat(recorded.await(1, TimeUnit.SECONDS), is(true));
+
+        for (int i = 0; i < 5 * MappedTraceMessageListener.RECORDS_PER_CHUNK; i++) {
+            listener.onMessageSent("message");
+        }
+
+        String output = decode();
+        finished.countDown();
+        idleThread.join();
+        assertThat(output, containsLineWithWords("<external> ->", DummyActor.class.getName()));
+        assertThat(listener.getDroppedEvents(), is(0L));
+    }
+
+    @Test
+    public void events_which_happen_after_closing_are_not_recorded() throws IOException {
+        listener.onMessageSent("message1");
+        listener.close();
+
+        listener.onMessageSent(new DummyActor()); // a new message type would need to be written to the closed strings file
+        listener.onProcessingStarted(new DummyActor(), "message2");
+        listener.onProcessingFinished();
+
+        assertThat(decode().split("\n").length, is(1));
+    }
+
+    @Test
+    public void capacity_must_be_at_least_one_chunk() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("capacity must be at least " + MappedTraceMessageListener.RECORDS_PER_CHUNK + ", but was 1");
+        new MappedTraceMessageListener(new File(tempDir.getRoot(), "other.bin"), 1);
+    }
+
+
+    // helpers
+
+    private String decode() throws IOException {
+        listener.close();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MappedTraceDecoder.decode(traceFile, new PrintStream(output));
+        return output.toString();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class DummyActor {
+    }
+}
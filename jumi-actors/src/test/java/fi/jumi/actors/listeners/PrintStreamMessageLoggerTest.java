@@ -4,6 +4,7 @@
 
 package fi.jumi.actors.listeners;
 
+import fi.jumi.actors.eventizers.dynamic.DynamicEvent;
 import org.junit.Test;
 
 import java.io.*;
@@ -13,7 +14,7 @@ import java.util.concurrent.*;
 import static fi.jumi.actors.Matchers.containsLineWithWords;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 
 public class PrintStreamMessageLoggerTest {
@@ -50,6 +51,24 @@ public class PrintStreamMessageLoggerTest {
     }
 
 
+    // logging trace contexts
+
+    @Test
+    public void the_tracing_logger_logs_the_trace_context_after_the_message() {
+        TracingPrintStreamMessageLogger logger = new TracingPrintStreamMessageLogger(new PrintStream(output));
+        Object actor = "actor1";
+
+        logger.onMessageSent("message1", new TraceContext(1, TraceContext.NO_PARENT, 1, 0, null));
+        logger.onProcessingStarted(actor, "message1", new TraceContext(1, TraceContext.NO_PARENT, 1, 0, null));
+        logger.onMessageSent("message2", new TraceContext(2, 1, 1, 1, actor));
+
+        assertThat(output.toString(), containsLineWithWords("<external> ->", "message1", "#1 (parent #0, root #1, hop 0, from <external>)"));
+        assertThat(output.toString(), containsLineWithWords("actor1 <-", "message1", "#1"));
+        assertThat(output.toString(), containsLineWithWords("actor1 ->", "message2",
+                "#2 (parent #1, root #1, hop 1, from java.lang.String@" + Integer.toHexString(System.identityHashCode(actor)) + ")"));
+    }
+
+
     // logging executor commands
 
     @Test
@@ -183,6 +202,27 @@ public class PrintStreamMessageLoggerTest {
         assertThat(output.toString(), containsString("[   0.000235]"));
     }
 
+    @Test
+    public void timestamps_are_padded_and_rounded_like_printf() {
+        long[] nanoTimes = {0L, 499L, 500L, 1234567L, 999999500L, 12345678901234L, 123456789012345678L, -1234567L};
+        for (long nanoTime : nanoTimes) {
+            StringBuilder line = new StringBuilder();
+            PrintStreamMessageLogger.formatLine(line, nanoTime, "thread", null, "->", 0, "message");
+
+            String expected = String.format(Locale.ENGLISH, "[%11.6f]", nanoTime / 1000000000.0);
+            assertThat(line.toString(), line.substring(0, expected.length()), is(expected));
+        }
+    }
+
+    @Test
+    public void events_are_formatted_the_same_way_as_their_toString() {
+        DynamicEvent<Runnable> event = new DynamicEvent<>(Runnable.class.getMethods()[0], null);
+
+        logger.onMessageSent(event);
+
+        assertThat(output.toString(), containsString(" " + event.toString()));
+    }
+
 
     // helpers
 
@@ -0,0 +1,199 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.listeners;
+
+import fi.jumi.actors.ActorsContractHelpers.DummyListener;
+import fi.jumi.actors.SingleThreadedActors;
+import fi.jumi.actors.eventizers.RecyclableEvent;
+import fi.jumi.actors.eventizers.bytecode.BytecodeEventizerProvider;
+import fi.jumi.actors.eventizers.dynamic.DynamicEvent;
+import org.junit.*;
+import org.junit.rules.ExpectedException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class SamplingMessageListenerTest {
+
+    private static final long TIMEOUT = 1000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final Queue<Long> fakeNanoTime = new LinkedList<>();
+
+    @Test
+    public void samples_one_in_N_messages() {
+        SamplingMessageListener listener = new SamplingMessageListener(3);
+
+        for (int i = 0; i < 9; i++) {
+            process(listener, "actor", new Object());
+        }
+
+        MethodSample sample = single(listener.getSnapshot());
+        assertThat(sample.getSampleCount(), is(3L));
+        assertThat(sample.getEstimatedCount(), is(9L));
+    }
+
+    @Test
+    public void aggregates_per_actor_class_and_message_type() throws Exception {
+        SamplingMessageListener listener = new SamplingMessageListener(1);
+        DynamicEvent<DummyListener> event = new DynamicEvent<>(DummyListener.class.getMethod("onSomething", String.class), new Object[]{"foo"});
+
+        process(listener, "actor", event);
+        process(listener, "actor", event);
+        process(listener, 42, event);
+        process(listener, "actor", new Object());
+
+        List<String> types = new ArrayList<>();
+        for (MethodSample sample : listener.getSnapshot()) {
+            types.add(sample.getActorClass() + " " + sample.getMessageType() + " " + sample.getSampleCount());
+        }
+        assertThat(types, containsInAnyOrder(
+                "java.lang.String DummyListener.onSomething 2",
+                "java.lang.Integer DummyListener.onSomething 1",
+                "java.lang.String java.lang.Object 1"));
+    }
+
+    @Test
+    public void measures_the_queueing_delay_and_processing_time() {
+        SamplingMessageListener listener = new SamplingMessageListener(1) {
+            @Override
+            protected long nanoTime() {
+                return fakeNanoTime.remove();
+            }
+        };
+        Object message = new Object();
+
+        fakeNanoTime.add(100L);
+        listener.onMessageSent(message);
+        fakeNanoTime.add(250L);
+        listener.onProcessingStarted("actor", message);
+        fakeNanoTime.add(1250L);
+        listener.onProcessingFinished();
+
+        MethodSample sample = single(listener.getSnapshot());
+        assertThat(sample.getMeanQueueingDelay(), is(150.0));
+        assertThat(sample.getP99QueueingDelay(), is(150L));
+        assertThat(sample.getMeanProcessingTime(), is(1000.0));
+        assertThat(sample.getP99ProcessingTime(), is(1000L));
+    }
+
+    @Test
+    public void messages_which_are_not_sampled_are_not_measured() {
+        SamplingMessageListener listener = new SamplingMessageListener(2);
+        Object notSampled = new Object();
+        Object sampled = new Object();
+
+        listener.onMessageSent(notSampled);
+        listener.onMessageSent(sampled);
+        listener.onProcessingStarted("actor", notSampled);
+        listener.onProcessingFinished();
+
+        assertThat(listener.getSnapshot(), is(empty()));
+    }
+
+    @Test
+    public void drops_the_oldest_sample_when_too_many_sampled_messages_are_waiting() {
+        SamplingMessageListener listener = new SamplingMessageListener(1) {
+            private long time = 0;
+
+            @Override
+            protected long nanoTime() {
+                return time++;
+            }
+        };
+        List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < SamplingMessageListener.MAX_SAMPLES_IN_FLIGHT + 1; i++) {
+            Object message = new Object();
+            listener.onMessageSent(message);
+            messages.add(message);
+        }
+
+        Object oldest = messages.remove(0);
+        listener.onProcessingStarted("actor", oldest);
+        listener.onProcessingFinished();
+        assertThat("the oldest sample", listener.getSnapshot(), is(empty()));
+
+        for (Object message : messages) {
+            listener.onProcessingStarted("actor", message);
+            listener.onProcessingFinished();
+        }
+        assertThat(single(listener.getSnapshot()).getSampleCount(), is((long) SamplingMessageListener.MAX_SAMPLES_IN_FLIGHT));
+    }
+
+    @Test
+    public void recyclable_events_are_sampled_also_when_they_are_reused_for_later_messages() {
+        SamplingMessageListener listener = new SamplingMessageListener(1);
+        SingleThreadedActors actors = new SingleThreadedActors(
+                new BytecodeEventizerProvider(true), new CrashEarlyFailureHandler(), listener);
+        DummyListener actor = actors.startActorThread().bindActor(DummyListener.class, parameter -> {
+        }).tell();
+
+        for (int i = 0; i < 3; i++) {
+            actor.onSomething("message " + i);
+            actors.processEventsUntilIdle();
+        }
+
+        MethodSample sample = single(listener.getSnapshot());
+        assertThat(sample.getMessageType(), endsWith("OnSomethingEvent"));
+        assertThat(sample.getSampleCount(), is(3L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void a_recyclable_event_which_was_not_sampled_is_not_mistaken_for_its_later_sampled_use() {
+        SamplingMessageListener listener = new SamplingMessageListener(2);
+        RecyclableEvent<Object> recyclable = mock(RecyclableEvent.class);
+
+        process(listener, "actor", recyclable);
+        process(listener, "actor", recyclable);
+        process(listener, "actor", recyclable);
+
+        MethodSample sample = single(listener.getSnapshot());
+        assertThat(sample.getSampleCount(), is(1L));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void publishes_snapshots_periodically() throws InterruptedException {
+        SamplingMessageListener listener = new SamplingMessageListener(1);
+        process(listener, "actor", new Object());
+        BlockingQueue<List<MethodSample>> published = new LinkedBlockingQueue<>();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            listener.publishSnapshots(scheduler, 1, TimeUnit.MILLISECONDS, published::add);
+
+            assertThat(published.take(), hasSize(1));
+            assertThat(published.take(), hasSize(1));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sample_rate_must_be_positive() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("sample rate must be at least 1, but was 0");
+        new SamplingMessageListener(0);
+    }
+
+
+    // helpers
+
+    private static void process(SamplingMessageListener listener, Object actor, Object message) {
+        listener.onMessageSent(message);
+        listener.onProcessingStarted(actor, message);
+        listener.onProcessingFinished();
+    }
+
+    private static MethodSample single(List<MethodSample> snapshot) {
+        assertThat(snapshot, hasSize(1));
+        return snapshot.get(0);
+    }
+}
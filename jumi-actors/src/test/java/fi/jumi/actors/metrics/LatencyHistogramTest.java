@@ -0,0 +1,70 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void is_empty_initially() {
+        assertThat(histogram.getTotalCount(), is(0L));
+        assertThat(histogram.getValueAtPercentile(50), is(0L));
+        assertThat(histogram.getMean(), is(0.0));
+    }
+
+    @Test
+    public void small_values_are_recorded_exactly() {
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(7);
+
+        assertThat(histogram.getTotalCount(), is(4L));
+        assertThat(histogram.getValueAtPercentile(50), is(2L));
+        assertThat(histogram.getValueAtPercentile(75), is(3L));
+        assertThat(histogram.getValueAtPercentile(100), is(7L));
+        assertThat(histogram.getMax(), is(7L));
+        assertThat(histogram.getMean(), is(3.25));
+    }
+
+    @Test
+    public void large_values_are_recorded_within_the_precision_of_their_bucket() {
+        for (long value = 8; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+
+            assertThat("highest equivalent value of " + value, highest, is(greaterThanOrEqualTo(value)));
+            assertThat("highest equivalent value of " + value, (double) highest, is(lessThanOrEqualTo(value * 1.125)));
+            assertThat("next bucket of " + value, LatencyHistogram.indexOf(highest + 1), is(index + 1));
+        }
+    }
+
+    @Test
+    public void percentiles_are_never_larger_than_the_maximum() {
+        histogram.record(1000);
+
+        assertThat(histogram.getValueAtPercentile(99), is(1000L));
+    }
+
+    @Test
+    public void the_largest_values_fit_into_the_histogram() {
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getValueAtPercentile(100), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void negative_values_are_recorded_as_zero() {
+        histogram.record(-5);
+
+        assertThat(histogram.getValueAtPercentile(100), is(0L));
+    }
+}
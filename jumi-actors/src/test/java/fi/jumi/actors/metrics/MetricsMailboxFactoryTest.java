@@ -0,0 +1,137 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.metrics;
+
+import fi.jumi.actors.*;
+import fi.jumi.actors.ActorsContractHelpers.DummyListener;
+import fi.jumi.actors.eventizers.EventizerProvider;
+import fi.jumi.actors.eventizers.bytecode.BytecodeEventizerProvider;
+import fi.jumi.actors.eventizers.dynamic.DynamicEventizerProvider;
+import fi.jumi.actors.listeners.*;
+import fi.jumi.actors.queue.*;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class MetricsMailboxFactoryTest {
+
+    private final MetricsMailboxFactory metricsMailboxFactory = new MetricsMailboxFactory();
+
+    @Test
+    public void measures_every_actor_thread_which_uses_its_mailboxes() {
+        SingleThreadedActors actors = newActors(new DynamicEventizerProvider());
+
+        actors.startActorThread(metricsMailboxFactory);
+        actors.startActorThread(metricsMailboxFactory);
+        actors.startActorThread();
+
+        assertThat(metricsMailboxFactory.getActorThreads(), hasSize(2));
+    }
+
+    @Test
+    public void queue_depth_is_the_number_of_messages_waiting_to_be_processed() {
+        SingleThreadedActors actors = newActors(new DynamicEventizerProvider());
+        DummyListener actor = bindActor(actors);
+        ActorThreadMetrics metrics = metricsMailboxFactory.getActorThreads().get(0);
+
+        actor.onSomething("one");
+        actor.onSomething("two");
+        assertThat("depth before processing", metrics.getQueueDepth(), is(2L));
+
+        actors.processEventsUntilIdle();
+        assertThat("depth after processing", metrics.getQueueDepth(), is(0L));
+        assertThat(metrics.getMessagesProcessed(), is(2L));
+        assertThat(metrics.getQueueLatency().getTotalCount(), is(2L));
+        assertThat(metrics.getName(), is(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void processing_time_of_dynamic_events_is_measured_per_actor_method() {
+        SingleThreadedActors actors = newActors(new DynamicEventizerProvider());
+        DummyListener actor = bindActor(actors);
+
+        actor.onSomething("one");
+        actor.onSomething("two");
+        actors.processEventsUntilIdle();
+
+        List<ProcessingTime> processingTimes = metricsMailboxFactory.getActorThreads().get(0).getProcessingTimes();
+        assertThat(processingTimes, hasSize(1));
+        assertThat(processingTimes.get(0).getMessageType(), is("DummyListener.onSomething"));
+        assertThat(processingTimes.get(0).getCount(), is(2L));
+    }
+
+    @Test
+    public void processing_time_of_other_events_is_measured_per_event_class() {
+        SingleThreadedActors actors = newActors(new BytecodeEventizerProvider());
+        DummyListener actor = bindActor(actors);
+
+        actor.onSomething("one");
+        actors.processEventsUntilIdle();
+
+        List<ProcessingTime> processingTimes = metricsMailboxFactory.getActorThreads().get(0).getProcessingTimes();
+        assertThat(processingTimes, hasSize(1));
+        assertThat(processingTimes.get(0).getMessageType(), endsWith("OnSomethingEvent"));
+    }
+
+    @Test
+    public void events_are_measured_by_their_type_also_when_the_container_puts_them_into_envelopes() {
+        SingleThreadedActors actors = new SingleThreadedActors(
+                new DynamicEventizerProvider(), new CrashEarlyFailureHandler(), mock(TracingMessageListener.class));
+        DummyListener actor = bindActor(actors);
+
+        actor.onSomething("one");
+        actors.processEventsUntilIdle();
+
+        List<ProcessingTime> processingTimes = metricsMailboxFactory.getActorThreads().get(0).getProcessingTimes();
+        assertThat(processingTimes, hasSize(1));
+        assertThat(processingTimes.get(0).getMessageType(), is("DummyListener.onSomething"));
+    }
+
+    @Test
+    public void stopped_actor_threads_are_no_more_measured() {
+        SingleThreadedActors actors = newActors(new DynamicEventizerProvider());
+        ActorThread stopped = actors.startActorThread(metricsMailboxFactory);
+        actors.startActorThread(metricsMailboxFactory);
+
+        stopped.stop();
+        actors.processEventsUntilIdle();
+
+        assertThat(metricsMailboxFactory.getActorThreads(), hasSize(1));
+    }
+
+    @Test
+    public void bounded_mailboxes_still_see_the_message_which_stops_the_actor_thread() {
+        MetricsMailboxFactory metricsMailboxFactory = new MetricsMailboxFactory(
+                () -> new BoundedBatchingManyToOneMessageQueue<>(1, 1, OverflowPolicy.FAIL_FAST));
+        SingleThreadedActors actors = newActors(new DynamicEventizerProvider());
+        ActorThread actorThread = actors.startActorThread(metricsMailboxFactory);
+        List<String> received = new ArrayList<>();
+        DummyListener actor = actorThread.bindActor(DummyListener.class, received::add).tell();
+        actor.onSomething("one");
+
+        actorThread.stop(); // would fail if the mailbox did not know that it's the last message
+
+        actors.processEventsUntilIdle();
+        assertThat(received, contains("one"));
+        assertThat(metricsMailboxFactory.getActorThreads(), is(empty()));
+    }
+
+
+    // helpers
+
+    private static SingleThreadedActors newActors(EventizerProvider eventizerProvider) {
+        return new SingleThreadedActors(eventizerProvider, new CrashEarlyFailureHandler(), new NullMessageListener());
+    }
+
+    private DummyListener bindActor(SingleThreadedActors actors) {
+        ActorThread actorThread = actors.startActorThread(metricsMailboxFactory);
+        return actorThread.bindActor(DummyListener.class, parameter -> {
+        }).tell();
+    }
+}
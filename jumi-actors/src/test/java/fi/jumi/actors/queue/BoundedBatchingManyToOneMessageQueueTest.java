@@ -0,0 +1,217 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import org.junit.*;
+import org.junit.rules.ExpectedException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BoundedBatchingManyToOneMessageQueueTest extends MailboxContract {
+
+    private static final long TIMEOUT = 1000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Override
+    protected Mailbox<String> newMailbox() {
+        return new BoundedBatchingManyToOneMessageQueue<>(10);
+    }
+
+
+    @Test
+    public void messages_which_the_receiver_sends_to_itself_are_read_before_messages_from_other_senders() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(10);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "external 1", "external 2");
+
+        queue.send("self");
+
+        assertThat(drain(queue), is(Arrays.asList("self", "external 1", "external 2")));
+    }
+
+    @Test
+    public void messages_from_other_senders_are_read_in_round_robin_batches() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(10, 2, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "A1", "A2", "A3");
+        sendFromAnotherThread(queue, "B1", "B2", "B3");
+
+        assertThat(drain(queue), is(Arrays.asList("A1", "A2", "B1", "B2", "A3", "B3")));
+    }
+
+    @Test
+    public void messages_sent_before_becoming_the_receiver_are_read_before_later_messages_to_self() {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(10, 1, OverflowPolicy.BLOCK);
+        queue.send("message 1");
+        queue.send("message 2");
+
+        String first = queue.poll();
+        queue.send("message 3");
+
+        assertThat(first, is("message 1"));
+        assertThat(drain(queue), is(Arrays.asList("message 2", "message 3")));
+    }
+
+    @Test
+    public void the_receiver_can_send_itself_messages_even_when_the_mailbox_is_full() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(1, 1, OverflowPolicy.FAIL_FAST);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "external");
+
+        queue.send("self 1");
+        queue.send("self 2");
+
+        assertThat(drain(queue), is(Arrays.asList("self 1", "self 2", "external")));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void when_full_with_BLOCK_policy_the_sender_waits_until_there_is_room() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(1, 1, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1");
+
+        FutureTask<Void> blockedSender = new FutureTask<>(() -> queue.send("message 2"), null);
+        new Thread(blockedSender).start();
+        Thread.sleep(10);
+        assertThat("sender should be blocked", blockedSender.isDone(), is(false));
+
+        assertThat(queue.take(), is("message 1"));
+        blockedSender.get();
+        assertThat(queue.take(), is("message 2"));
+    }
+
+    @Test
+    public void when_full_with_FAIL_FAST_policy_the_sender_gets_an_exception() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(1, 1, OverflowPolicy.FAIL_FAST);
+        queue.send("message 1");
+
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("mailbox full");
+        queue.send("message 2");
+    }
+
+    @Test
+    public void when_full_with_DROP_OLDEST_policy_the_oldest_message_from_the_most_active_sender_is_dropped() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(3, 10, OverflowPolicy.DROP_OLDEST);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "A1");
+        sendFromAnotherThread(queue, "B1", "B2");
+
+        sendFromAnotherThread(queue, "C1");
+
+        assertThat(drain(queue), is(Arrays.asList("A1", "B2", "C1")));
+        assertThat(queue.getDroppedMessages(), is(1L));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void when_full_with_BLOCK_policy_a_waiting_sender_can_be_interrupted() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<String> queue = new BoundedBatchingManyToOneMessageQueue<>(1, 1, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1");
+        AtomicBoolean interruptedAfterSending = new AtomicBoolean();
+        Thread blockedSender = new Thread(() -> {
+            queue.send("message 2");
+            interruptedAfterSending.set(Thread.currentThread().isInterrupted());
+        });
+        blockedSender.start();
+        awaitWaiting(blockedSender);
+
+        blockedSender.interrupt();
+        blockedSender.join();
+
+        assertThat("keeps the interrupted status", interruptedAfterSending.get(), is(true));
+        assertThat("enqueues the message regardless of capacity", drain(queue), is(Arrays.asList("message 1", "message 2")));
+    }
+
+    @Test
+    public void the_last_message_is_read_after_all_messages_which_were_sent_before_it_by_any_sender() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<Object> queue = new BoundedBatchingManyToOneMessageQueue<>(10, 1, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "A1", "A2", "A3");
+        DummyLastMessage stop = new DummyLastMessage();
+        sendFromAnotherThread(queue, "B1", stop, "B2");
+        sendFromAnotherThread(queue, "C1");
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("A1", "B1", "A2", "A3", stop, "B2", "C1")));
+    }
+
+    @Test
+    public void the_last_message_is_read_after_the_messages_which_the_receiver_sent_itself_before_it() {
+        BoundedBatchingManyToOneMessageQueue<Object> queue = new BoundedBatchingManyToOneMessageQueue<>(10);
+        queue.poll(); // become the receiver
+        DummyLastMessage stop = new DummyLastMessage();
+
+        queue.send("self");
+        queue.send(stop);
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("self", stop)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void the_last_message_can_be_sent_even_when_the_mailbox_is_full_and_it_releases_waiting_senders() throws Exception {
+        BoundedBatchingManyToOneMessageQueue<Object> queue = new BoundedBatchingManyToOneMessageQueue<>(1, 1, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1");
+        Thread blockedSender = new Thread(() -> queue.send("message 2"));
+        blockedSender.start();
+        awaitWaiting(blockedSender);
+        DummyLastMessage stop = new DummyLastMessage();
+
+        sendFromAnotherThread(queue, stop);
+        blockedSender.join();
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("message 1", stop, "message 2")));
+    }
+
+    @Test
+    public void capacity_must_be_positive() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("capacity must be at least 1");
+        new BoundedBatchingManyToOneMessageQueue<String>(0);
+    }
+
+
+    // helpers
+
+    @SafeVarargs
+    private static <T> void sendFromAnotherThread(MessageSender<T> queue, T... messages) throws Exception {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            for (T message : messages) {
+                queue.send(message);
+            }
+        }, null);
+        new Thread(task).start();
+        task.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> List<T> drain(MessageReceiver<T> queue) {
+        List<T> messages = new ArrayList<>();
+        T message;
+        while ((message = queue.poll()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static class DummyLastMessage implements LastMessage {
+        @Override
+        public String toString() {
+            return "stop";
+        }
+    }
+}
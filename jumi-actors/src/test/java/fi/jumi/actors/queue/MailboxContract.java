@@ -0,0 +1,176 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public abstract class MailboxContract {
+
+    private static final long TIMEOUT = 1000;
+
+    protected final Mailbox<String> mailbox = newMailbox();
+
+    protected abstract Mailbox<String> newMailbox();
+
+    @After
+    public void clearThreadInterruptedStatus() {
+        Thread.interrupted();
+    }
+
+
+    // sending and receiving
+
+    @Test
+    public void poll_returns_null_when_there_are_no_messages() {
+        assertThat(mailbox.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void messages_are_received_in_the_order_they_were_sent() throws InterruptedException {
+        mailbox.send("message 1");
+        mailbox.send("message 2");
+        mailbox.send("message 3");
+
+        assertThat(mailbox.poll(), is("message 1"));
+        assertThat(mailbox.take(), is("message 2"));
+        assertThat(mailbox.poll(), is("message 3"));
+        assertThat(mailbox.poll(), is(nullValue()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void take_waits_until_a_message_is_sent() throws InterruptedException {
+        Thread sender = new Thread(() -> {
+            sleep(10);
+            mailbox.send("the message");
+        });
+        sender.start();
+
+        assertThat(mailbox.take(), is("the message"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void messages_from_many_senders_are_all_received() throws InterruptedException {
+        int senders = 4;
+        int messagesPerSender = 1000;
+        for (int i = 0; i < senders; i++) {
+            String sender = "sender " + i;
+            new Thread(() -> {
+                for (int j = 0; j < messagesPerSender; j++) {
+                    mailbox.send(sender + " message " + j);
+                }
+            }).start();
+        }
+
+        Set<String> received = new HashSet<>();
+        Map<String, Integer> lastReceivedBySender = new HashMap<>();
+        for (int i = 0; i < senders * messagesPerSender; i++) {
+            String message = mailbox.take();
+            received.add(message);
+
+            String sender = message.substring(0, message.indexOf(" message "));
+            int sequence = Integer.parseInt(message.substring(message.lastIndexOf(' ') + 1));
+            Integer previous = lastReceivedBySender.put(sender, sequence);
+            assertThat("messages from " + sender + " are in order", sequence, is(previous == null ? 0 : previous + 1));
+        }
+        assertThat(received.size(), is(senders * messagesPerSender));
+    }
+
+
+    // batches
+
+    @Test
+    public void drainTo_sends_the_available_messages_to_the_target_in_order() {
+        mailbox.send("message 1");
+        mailbox.send("message 2");
+        List<String> target = new ArrayList<>();
+
+        int count = mailbox.drainTo(target::add, 10);
+
+        assertThat(count, is(2));
+        assertThat(target, is(Arrays.asList("message 1", "message 2")));
+        assertThat(mailbox.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void drainTo_removes_at_most_the_specified_number_of_messages() {
+        mailbox.send("message 1");
+        mailbox.send("message 2");
+        mailbox.send("message 3");
+        List<String> target = new ArrayList<>();
+
+        int count = mailbox.drainTo(target::add, 2);
+
+        assertThat(count, is(2));
+        assertThat(target, is(Arrays.asList("message 1", "message 2")));
+        assertThat(mailbox.poll(), is("message 3"));
+    }
+
+    @Test
+    public void drainTo_does_nothing_when_there_are_no_messages() {
+        List<String> target = new ArrayList<>();
+
+        int count = mailbox.drainTo(target::add, 10);
+
+        assertThat(count, is(0));
+        assertThat(target, is(empty()));
+    }
+
+
+    // interrupts
+
+    @Test
+    public void send_does_not_change_the_interrupt_status_of_the_current_thread() {
+        Thread.currentThread().interrupt();
+
+        mailbox.send("any message");
+
+        assertThat("interrupt status after send", Thread.currentThread().isInterrupted(), is(true));
+    }
+
+    @Test
+    public void send_enqueues_even_when_interrupted() {
+        Thread.currentThread().interrupt();
+
+        mailbox.send("the message");
+
+        assertThat(mailbox.poll(), is("the message"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void take_throws_InterruptedException_when_interrupted_while_waiting() throws Exception {
+        FutureTask<Throwable> receiver = new FutureTask<>(() -> {
+            try {
+                mailbox.take();
+                return null;
+            } catch (InterruptedException e) {
+                return e;
+            }
+        });
+        Thread thread = new Thread(receiver);
+        thread.start();
+        sleep(10);
+
+        thread.interrupt();
+
+        assertThat(receiver.get(), is(instanceOf(InterruptedException.class)));
+    }
+
+
+    // helpers
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
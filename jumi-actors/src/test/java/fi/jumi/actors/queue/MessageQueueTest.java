@@ -4,35 +4,34 @@
 
 package fi.jumi.actors.queue;
 
-import org.junit.*;
+import org.junit.Test;
 
-import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.is;
-
-public class MessageQueueTest {
-
-    private final MessageQueue<String> messageQueue = new MessageQueue<>();
-
-    @After
-    public void clearThreadInterruptedStatus() {
-        Thread.interrupted();
-    }
+import java.util.*;
 
-    @Test
-    public void send_does_not_change_the_interrupt_status_of_the_current_thread() {
-        Thread.currentThread().interrupt();
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 
-        messageQueue.send("any message");
+public class MessageQueueTest extends MailboxContract {
 
-        assertThat("interrupt status after send", Thread.currentThread().isInterrupted(), is(true));
+    @Override
+    protected Mailbox<String> newMailbox() {
+        return new MessageQueue<>();
     }
 
     @Test
-    public void send_enqueues_even_when_interrupted() {
-        Thread.currentThread().interrupt();
-
-        messageQueue.send("the message");
-
-        assertThat(messageQueue.poll(), is("the message"));
+    public void the_queue_can_be_drained_while_delivering_the_previous_batch() {
+        MessageQueue<String> queue = new MessageQueue<>();
+        List<String> received = new ArrayList<>();
+        queue.send("message 1");
+
+        queue.drainTo(message -> {
+            received.add(message);
+            queue.send("message 2");
+            queue.drainTo(received::add, 10);
+        }, 10);
+        queue.send("message 3");
+        queue.drainTo(received::add, 10);
+
+        assertThat(received, is(Arrays.asList("message 1", "message 2", "message 3")));
     }
 }
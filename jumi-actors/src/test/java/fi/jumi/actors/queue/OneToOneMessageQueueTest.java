@@ -0,0 +1,152 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import org.junit.*;
+import org.junit.rules.ExpectedException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class OneToOneMessageQueueTest extends MailboxContract {
+
+    private static final long TIMEOUT = 1000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Override
+    protected Mailbox<String> newMailbox() {
+        return new OneToOneMessageQueue<>(4);
+    }
+
+
+    @Test
+    public void messages_from_the_producer_and_other_threads_are_read_in_the_order_they_were_sent() throws Exception {
+        OneToOneMessageQueue<String> queue = new OneToOneMessageQueue<>();
+        queue.send("producer 1"); // become the producer
+        sendFromAnotherThread(queue, "other 1");
+        queue.send("producer 2");
+        queue.send("producer 3");
+        sendFromAnotherThread(queue, "other 2", "other 3");
+        queue.send("producer 4");
+
+        assertThat(drain(queue), is(Arrays.asList(
+                "producer 1", "other 1", "producer 2", "producer 3", "other 2", "other 3", "producer 4")));
+    }
+
+    @Test
+    public void a_message_from_another_thread_is_read_after_the_producers_earlier_messages_also_across_chunks() throws Exception {
+        OneToOneMessageQueue<String> queue = new OneToOneMessageQueue<>(2);
+        for (int i = 0; i < 5; i++) {
+            queue.send("producer " + i);
+        }
+        sendFromAnotherThread(queue, "stop");
+
+        assertThat(drain(queue), is(Arrays.asList(
+                "producer 0", "producer 1", "producer 2", "producer 3", "producer 4", "stop")));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void a_waiting_receiver_is_woken_up_when_the_producer_sends_a_message() throws Exception {
+        OneToOneMessageQueue<String> queue = new OneToOneMessageQueue<>();
+        for (int i = 0; i < 100; i++) {
+            String message = "message " + i;
+            FutureTask<String> receiver = new FutureTask<>(queue::take);
+            Thread receiverThread = new Thread(receiver);
+            receiverThread.start();
+            while (receiverThread.getState() != Thread.State.WAITING) {
+                Thread.yield();
+            }
+
+            queue.send(message);
+
+            // the receiver is parked without a timeout, so it returns only if it was woken up
+            assertThat(receiver.get(TIMEOUT, TimeUnit.MILLISECONDS), is(message));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void a_message_which_arrives_just_before_the_receiver_starts_waiting_is_not_lost() throws InterruptedException {
+        OneToOneMessageQueue<String> queue = new OneToOneMessageQueue<String>() {
+            private boolean firstPoll = true;
+
+            @Override
+            public String poll() {
+                if (firstPoll) {
+                    // the message arrives after this poll, but before the receiver starts waiting
+                    firstPoll = false;
+                    return null;
+                }
+                return super.poll();
+            }
+        };
+        queue.send("message");
+
+        assertThat(queue.take(), is("message"));
+    }
+
+    @Test
+    public void the_producers_messages_span_many_chunks() {
+        OneToOneMessageQueue<String> queue = new OneToOneMessageQueue<>(2);
+
+        for (int round = 0; round < 3; round++) {
+            List<String> sent = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String message = "round " + round + " message " + i;
+                queue.send(message);
+                sent.add(message);
+            }
+            assertThat(drain(queue), is(sent));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void messages_from_a_producer_thread_are_received_in_order() throws InterruptedException {
+        OneToOneMessageQueue<String> queue = new OneToOneMessageQueue<>(16);
+        int messages = 10000;
+        new Thread(() -> {
+            for (int i = 0; i < messages; i++) {
+                queue.send("message " + i);
+            }
+        }).start();
+
+        for (int i = 0; i < messages; i++) {
+            assertThat(queue.take(), is("message " + i));
+        }
+    }
+
+    @Test
+    public void chunk_size_must_be_positive() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("chunk size must be at least 1, but was 0");
+        new OneToOneMessageQueue<String>(0);
+    }
+
+
+    // helpers
+
+    private static void sendFromAnotherThread(MessageSender<String> queue, String... messages) throws Exception {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            for (String message : messages) {
+                queue.send(message);
+            }
+        }, null);
+        new Thread(task).start();
+        task.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private static List<String> drain(MessageReceiver<String> queue) {
+        List<String> messages = new ArrayList<>();
+        String message;
+        while ((message = queue.poll()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+}
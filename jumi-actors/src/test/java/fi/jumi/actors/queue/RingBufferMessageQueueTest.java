@@ -0,0 +1,231 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import org.junit.*;
+import org.junit.rules.ExpectedException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RingBufferMessageQueueTest extends MailboxContract {
+
+    private static final long TIMEOUT = 1000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Override
+    protected Mailbox<String> newMailbox() {
+        return new RingBufferMessageQueue<>(16);
+    }
+
+
+    @Test
+    public void slots_are_reused_when_the_ring_wraps_around() {
+        RingBufferMessageQueue<String> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.FAIL_FAST);
+
+        for (int i = 0; i < 5; i++) {
+            queue.send("message " + i);
+            assertThat(queue.poll(), is("message " + i));
+        }
+    }
+
+    @Test
+    public void drainTo_frees_the_slot_only_after_the_message_has_been_processed() throws Exception {
+        RingBufferMessageQueue<String> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.FAIL_FAST);
+        queue.send("message 1");
+        queue.send("message 2");
+        List<String> sentWhileProcessing = new ArrayList<>();
+
+        queue.drainTo(message -> {
+            try {
+                sendFromAnotherThread(queue, "message 3");
+            } catch (Exception e) {
+                sentWhileProcessing.add(e.getCause().getMessage());
+            }
+        }, 1);
+
+        assertThat(sentWhileProcessing, contains(containsString("mailbox full")));
+        sendFromAnotherThread(queue, "message 3");
+        assertThat(drain(queue), is(Arrays.asList("message 2", "message 3")));
+    }
+
+    @Test
+    public void the_receiver_can_send_itself_messages_even_when_the_mailbox_is_full() throws Exception {
+        RingBufferMessageQueue<String> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.FAIL_FAST);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "external 1", "external 2");
+
+        queue.send("self 1");
+        queue.send("self 2");
+        assertThat(queue.poll(), is("external 1"));
+        sendFromAnotherThread(queue, "external 3");
+
+        assertThat(drain(queue), is(Arrays.asList("external 2", "self 1", "self 2", "external 3")));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void when_full_with_BLOCK_policy_the_sender_waits_until_there_is_room() throws Exception {
+        RingBufferMessageQueue<String> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1", "message 2");
+
+        FutureTask<Void> blockedSender = new FutureTask<>(() -> queue.send("message 3"), null);
+        new Thread(blockedSender).start();
+        Thread.sleep(10);
+        assertThat("sender should be blocked", blockedSender.isDone(), is(false));
+
+        assertThat(queue.take(), is("message 1"));
+        blockedSender.get();
+        assertThat(queue.take(), is("message 2"));
+        assertThat(queue.take(), is("message 3"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void when_full_with_BLOCK_policy_a_waiting_sender_can_be_interrupted() throws Exception {
+        RingBufferMessageQueue<String> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1", "message 2");
+        AtomicBoolean interruptedAfterSending = new AtomicBoolean();
+        Thread blockedSender = new Thread(() -> {
+            queue.send("message 3");
+            interruptedAfterSending.set(Thread.currentThread().isInterrupted());
+        });
+        blockedSender.start();
+        Thread.sleep(10);
+
+        blockedSender.interrupt();
+        blockedSender.join();
+
+        assertThat("keeps the interrupted status", interruptedAfterSending.get(), is(true));
+        assertThat("enqueues the message regardless of capacity", drain(queue), is(Arrays.asList("message 1", "message 2", "message 3")));
+    }
+
+    @Test
+    public void when_full_with_FAIL_FAST_policy_the_sender_gets_an_exception() {
+        RingBufferMessageQueue<String> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.FAIL_FAST);
+        queue.send("message 1");
+        queue.send("message 2");
+
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("mailbox full");
+        queue.send("message 3");
+    }
+
+    @Test
+    public void the_last_message_is_read_after_all_messages_which_were_sent_before_it() throws Exception {
+        RingBufferMessageQueue<Object> queue = new RingBufferMessageQueue<>(16);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "A1", "A2");
+        DummyLastMessage stop = new DummyLastMessage();
+        sendFromAnotherThread(queue, "B1", stop, "B2");
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("A1", "A2", "B1", stop, "B2")));
+    }
+
+    @Test
+    public void the_last_message_is_read_after_the_messages_which_the_receiver_sent_itself_before_it() {
+        RingBufferMessageQueue<Object> queue = new RingBufferMessageQueue<>(2);
+        queue.poll(); // become the receiver
+        DummyLastMessage stop = new DummyLastMessage();
+
+        queue.send("self 1");
+        queue.send("self 2");
+        queue.send("self 3");
+        queue.send(stop);
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("self 1", "self 2", "self 3", stop)));
+    }
+
+    @Test
+    public void with_FAIL_FAST_policy_the_last_message_can_be_sent_even_when_the_mailbox_is_full() throws Exception {
+        RingBufferMessageQueue<Object> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.FAIL_FAST);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1", "message 2");
+        DummyLastMessage stop = new DummyLastMessage();
+
+        sendFromAnotherThread(queue, stop, "message 3");
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("message 1", "message 2", stop, "message 3")));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void with_BLOCK_policy_the_last_message_can_be_sent_even_when_the_mailbox_is_full_and_it_releases_waiting_senders() throws Exception {
+        RingBufferMessageQueue<Object> queue = new RingBufferMessageQueue<>(2, OverflowPolicy.BLOCK);
+        queue.poll(); // become the receiver
+        sendFromAnotherThread(queue, "message 1", "message 2");
+        Thread blockedSender = new Thread(() -> queue.send("message 3"));
+        blockedSender.start();
+        Thread.sleep(10);
+        DummyLastMessage stop = new DummyLastMessage();
+
+        sendFromAnotherThread(queue, stop);
+        blockedSender.join();
+
+        assertThat(drain(queue), is(Arrays.<Object>asList("message 1", "message 2", stop, "message 3")));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void a_receiver_waiting_for_messages_is_woken_up_by_the_last_message() throws Exception {
+        RingBufferMessageQueue<Object> queue = new RingBufferMessageQueue<>(2);
+        FutureTask<Object> receiver = new FutureTask<>(queue::take);
+        new Thread(receiver).start();
+        Thread.sleep(10);
+        DummyLastMessage stop = new DummyLastMessage();
+
+        queue.send(stop);
+
+        assertThat(receiver.get(), is((Object) stop));
+    }
+
+    @Test
+    public void capacity_must_be_a_power_of_two() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("capacity must be a power of two and at least 2, but was 12");
+        new RingBufferMessageQueue<String>(12);
+    }
+
+    @Test
+    public void DROP_OLDEST_policy_is_not_supported() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("DROP_OLDEST is not supported");
+        new RingBufferMessageQueue<String>(16, OverflowPolicy.DROP_OLDEST);
+    }
+
+
+    // helpers
+
+    @SafeVarargs
+    private static <T> void sendFromAnotherThread(MessageSender<T> queue, T... messages) throws Exception {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            for (T message : messages) {
+                queue.send(message);
+            }
+        }, null);
+        new Thread(task).start();
+        task.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> List<T> drain(MessageReceiver<T> queue) {
+        List<T> messages = new ArrayList<>();
+        T message;
+        while ((message = queue.poll()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static class DummyLastMessage implements LastMessage {
+        @Override
+        public String toString() {
+            return "stop";
+        }
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright © 2011-2015, Esko Luontola <www.orfjackal.net>
+// This software is released under the Apache License 2.0.
+// The license text is at http://www.apache.org/licenses/LICENSE-2.0
+
+package fi.jumi.actors.queue;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.*;
+import java.util.concurrent.FutureTask;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(Parameterized.class)
+public class WaitStrategiesTest {
+
+    private static final long TIMEOUT = 1000;
+
+    private final WaitStrategy waitStrategy;
+    private final MessageQueue<String> queue = new MessageQueue<>();
+
+    public WaitStrategiesTest(String name, WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {"blocking", new BlockingWaitStrategy()},
+                {"spin then park", new SpinThenParkWaitStrategy(10, 10)},
+                {"yielding", new YieldingWaitStrategy(10)},
+                {"busy spin", new BusySpinWaitStrategy()},
+        });
+    }
+
+    @After
+    public void clearThreadInterruptedStatus() {
+        Thread.interrupted();
+    }
+
+
+    @Test
+    public void returns_an_already_available_message() throws InterruptedException {
+        queue.send("the message");
+
+        assertThat(waitStrategy.take(queue), is("the message"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void waits_until_a_message_is_sent() throws InterruptedException {
+        new Thread(() -> {
+            sleep(10);
+            queue.send("the message");
+        }).start();
+
+        assertThat(waitStrategy.take(queue), is("the message"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void throws_InterruptedException_when_interrupted_while_waiting() throws Exception {
+        FutureTask<Throwable> receiver = new FutureTask<>(() -> {
+            try {
+                waitStrategy.take(queue);
+                return null;
+            } catch (InterruptedException e) {
+                return e;
+            }
+        });
+        Thread thread = new Thread(receiver);
+        thread.start();
+        sleep(10);
+
+        thread.interrupt();
+
+        assertThat(receiver.get(), is(instanceOf(InterruptedException.class)));
+    }
+
+
+    // helpers
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}